@@ -0,0 +1,51 @@
+package chip8emu.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip8emu.emulator.CPU;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CPUBenchmark {
+	private static final int INSTRUCTIONS = 1000;
+	
+	@Param({ "load", "alu", "skip", "call", "draw", "memory", "timer", "random" })
+	public String family;
+	
+	@Param({ "false", "true" })
+	public boolean blockDispatch;
+	
+	private CPU cpu;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		cpu = new CPU();
+		cpu.setBlockDispatch(blockDispatch);
+		cpu.loadROM(Programs.write(Programs.forFamily(family)));
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(INSTRUCTIONS)
+	public void step() {
+		cpu.run(INSTRUCTIONS);
+	}
+}
@@ -0,0 +1,66 @@
+package chip8emu.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip8emu.emulator.CPU;
+import chip8emu.emulator.FrameBuffer;
+import chip8emu.emulator.TimerClock;
+
+// Runs whole ROMs for a fixed number of frames. Pass a corpus with
+// -p rom=/path/to/a.ch8,/path/to/b.ch8, otherwise a built-in demo program is used
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorpusBenchmark {
+	@Param({ "" })
+	public String rom;
+	
+	@Param({ "600" })
+	public int frames;
+	
+	@Param({ "700" })
+	public int clockSpeed;
+	
+	@Param({ "false", "true" })
+	public boolean blockDispatch;
+	
+	private String path;
+	private CPU cpu;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		path = rom.isEmpty() ? Programs.write(Programs.demo()) : rom;
+		cpu = new CPU();
+		cpu.setBlockDispatch(blockDispatch);
+	}
+	
+	@Benchmark
+	public long runROM() throws IOException {
+		int instructionsPerFrame = clockSpeed / TimerClock.FREQUENCY;
+		cpu.loadROM(path);
+		
+		for (int i = 0; i < frames; i++) {
+			cpu.run(instructionsPerFrame);
+			cpu.tickTimers();
+		}
+		
+		return ((FrameBuffer)cpu.getScreen()).getGeneration();
+	}
+}
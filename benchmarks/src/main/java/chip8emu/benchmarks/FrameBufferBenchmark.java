@@ -0,0 +1,55 @@
+package chip8emu.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip8emu.emulator.FrameBuffer;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameBufferBenchmark {
+	private static final int SPRITES = 1024;
+	
+	private int next;
+	private int sprites[];
+	private FrameBuffer frameBuffer;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		frameBuffer = new FrameBuffer();
+		sprites = new int[SPRITES];
+		
+		// x, y and sprite data packed into one int each, including off-screen positions that wrap
+		for (int i = 0; i < sprites.length; i++) {
+			sprites[i] = (random.nextInt(256) << 16) | (random.nextInt(256) << 8) | random.nextInt(256);
+		}
+	}
+	
+	@Benchmark
+	public boolean drawByte() {
+		int sprite = sprites[next++ & (SPRITES - 1)];
+		return frameBuffer.drawByte((sprite >> 16) & 0xff, (sprite >> 8) & 0xff, sprite & 0xff);
+	}
+	
+	@Benchmark
+	public void clear() {
+		frameBuffer.clear();
+	}
+}
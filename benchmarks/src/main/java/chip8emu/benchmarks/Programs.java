@@ -0,0 +1,66 @@
+package chip8emu.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class Programs {
+	public static byte[] forFamily(String family) {
+		switch (family) {
+		case "load":
+			// LD Vx, byte
+			return assemble(0x6005, 0x6106, 0x6207, 0x6308, 0x6409, 0x650a, 0x660b, 0x1200);
+		case "alu":
+			// 8xy? arithmetic and logic
+			return assemble(0x6003, 0x6105, 0x8014, 0x8015, 0x8011, 0x8012, 0x8013, 0x8016, 0x801e, 0x8017, 0x1200);
+		case "skip":
+			// SE / SNE, both taken and not taken
+			return assemble(0x6000, 0x3000, 0x6001, 0x4001, 0x6002, 0x5010, 0x6003, 0x9010, 0x1200);
+		case "call":
+			// CALL / RET
+			return assemble(0x2204, 0x1200, 0x00ee);
+		case "draw":
+			// DRW with a font sprite, moving right each time
+			return assemble(0x6000, 0x610a, 0xf129, 0xd015, 0x7001, 0x1204);
+		case "memory":
+			// LD B, LD [I], LD Vx, [I]
+			return assemble(0xa300, 0x6a7b, 0xfa33, 0xf355, 0xf365, 0x1200);
+		case "timer":
+			// LD DT, Vx / LD Vx, DT
+			return assemble(0x603c, 0xf015, 0xf107, 0xf018, 0x1200);
+		case "random":
+			// RND Vx, byte
+			return assemble(0xc0ff, 0xc10f, 0xc2f0, 0x1200);
+		default:
+			throw new IllegalArgumentException("Unknown opcode family: " + family);
+		}
+	}
+	
+	public static byte[] demo() {
+		// Bounces the font sprite for 0 across the screen, redrawing it every frame
+		return assemble(
+			0x6000, 0x6100, 0x6201, 0xa000,
+			0xd015, 0x6301, 0xf315, 0xf307,
+			0x3300, 0x120e, 0xd015, 0x8024,
+			0x7101, 0x1208);
+	}
+	
+	public static String write(byte[] program) throws IOException {
+		File file = File.createTempFile("chip8emu-benchmark", ".ch8");
+		file.deleteOnExit();
+		Files.write(file.toPath(), program);
+		
+		return file.getAbsolutePath();
+	}
+	
+	private static byte[] assemble(int... opcodes) {
+		byte program[] = new byte[opcodes.length * 2];
+		
+		for (int i = 0; i < opcodes.length; i++) {
+			program[i * 2] = (byte)(opcodes[i] >> 8);
+			program[i * 2 + 1] = (byte)opcodes[i];
+		}
+		
+		return program;
+	}
+}
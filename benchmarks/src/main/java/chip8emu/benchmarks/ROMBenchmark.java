@@ -0,0 +1,56 @@
+package chip8emu.benchmarks;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip8emu.emulator.CPU;
+import chip8emu.emulator.ROM;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ROMBenchmark {
+	@Param({ "256", "3584" })
+	public int size;
+	
+	private String path;
+	private ROM rom;
+	private CPU cpu;
+	
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		byte data[] = new byte[size];
+		new Random(42).nextBytes(data);
+		
+		path = Programs.write(data);
+		rom = new ROM(path);
+		cpu = new CPU();
+	}
+	
+	@Benchmark
+	public void loadROM() throws IOException {
+		cpu.loadROM(path);
+	}
+	
+	@Benchmark
+	public void copyROM() {
+		cpu.loadROM(rom);
+	}
+}
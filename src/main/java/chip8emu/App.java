@@ -1,18 +1,177 @@
 package chip8emu;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import javax.sound.sampled.LineUnavailableException;
+
+import chip8emu.audio.SquareWaveSpeaker;
 import chip8emu.emulator.CPU;
+import chip8emu.emulator.FrameBuffer;
+import chip8emu.emulator.Movie;
+import chip8emu.emulator.MoviePlayer;
+import chip8emu.emulator.MovieRecorder;
+import chip8emu.emulator.ROM;
+import chip8emu.emulator.ROMMetadata;
+import chip8emu.emulator.ROMRepository;
+import chip8emu.emulator.RewindBuffer;
+import chip8emu.emulator.Scheduler;
+import chip8emu.emulator.TimerClock;
+import chip8emu.emulator.TraceRecorder;
 import chip8emu.gui.Display;
 
 public class App {
 	public static void main(String[] args) {
 		CPU cpu = new CPU();
+		ROMRepository repository = new ROMRepository();
+		Integer clockSpeed = null;
+		String romPath = null;
+		String recordPath = null;
+		String replayPath = null;
+		String tracePath = null;
+		Integer turboMultiplier = null;
+		
+		for (String arg : args) {
+			if (arg.startsWith("--clock=")) {
+				clockSpeed = Integer.parseInt(arg.substring("--clock=".length()));
+			} else if (arg.startsWith("--metadata=")) {
+				String metadataPath = arg.substring("--metadata=".length());
+				
+				try (InputStream input = Files.newInputStream(Paths.get(metadataPath))) {
+					repository.loadMetadata(input);
+				} catch (IOException e) {
+					System.err.println("Could not load ROM metadata '" + metadataPath + "': " + e.getMessage());
+				}
+			} else if (arg.startsWith("--seed=")) {
+				cpu.setSeed(Long.parseLong(arg.substring("--seed=".length())));
+				cpu.setDeterministic(true);
+			} else if (arg.equals("--deterministic")) {
+				cpu.setDeterministic(true);
+			} else if (arg.startsWith("--record=")) {
+				recordPath = arg.substring("--record=".length());
+				cpu.setDeterministic(true);
+			} else if (arg.startsWith("--replay=")) {
+				replayPath = arg.substring("--replay=".length());
+			} else if (arg.startsWith("--trace=")) {
+				tracePath = arg.substring("--trace=".length());
+			} else if (arg.startsWith("--turbo=")) {
+				turboMultiplier = Integer.parseInt(arg.substring("--turbo=".length()));
+			} else if (arg.equals("--block-dispatch")) {
+				cpu.setBlockDispatch(true);
+			} else {
+				romPath = arg;
+			}
+		}
+		
+		if (replayPath != null) {
+			replay(cpu, repository, romPath, replayPath);
+			return;
+		}
 		
-		if (args.length > 0) {
-			cpu.loadROM(args[0]);
+		// Without an explicit seed, pick one and print it so the run can be repeated
+		if (cpu.getDeterministic() && !cpu.isSeeded()) {
+			long seed = System.nanoTime();
+			cpu.setSeed(seed);
+			System.out.println("Seed: " + seed);
+		}
+		
+		try {
+			cpu.setSpeaker(new SquareWaveSpeaker());
+		} catch (LineUnavailableException | IllegalArgumentException e) {
+			System.err.println("Audio output unavailable: " + e.getMessage());
+		}
+		
+		int speed = clockSpeed != null ? clockSpeed : Scheduler.DEFAULT_CLOCK_SPEED;
+		
+		if (romPath != null) {
+			try {
+				ROM rom = repository.load(romPath);
+				ROMMetadata metadata = repository.getMetadata(rom.getHash());
+				cpu.loadROM(rom);
+				System.out.println("Loaded ROM: " + romPath);
+				
+				// An explicit --clock always wins over the ROM's preferred speed
+				if (clockSpeed == null && metadata != null) {
+					speed = metadata.getClockSpeed();
+				}
+			} catch (IOException e) {
+				System.err.println("Could not load ROM '" + romPath + "': " + e.getMessage());
+			}
 		} else {
 			System.out.println("Press TAB to select a ROM to load");
 		}
 		
-		new Display(cpu);
+		Scheduler scheduler = new Scheduler(cpu, speed);
+		scheduler.setRewindBuffer(new RewindBuffer());
+		
+		if (turboMultiplier != null) {
+			scheduler.setTurboMultiplier(turboMultiplier);
+			scheduler.setTurbo(true);
+		}
+		
+		if (recordPath != null) {
+			MovieRecorder recorder = new MovieRecorder(recordPath);
+			scheduler.setMovieRecorder(recorder);
+			
+			// Display exits the VM when its window closes, so the movie is written from a hook
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					recorder.close();
+					System.out.println("Recorded " + recorder.getFrameCount() + " frames to " + recorder.getFilePath());
+				} catch (IOException e) {
+					System.err.println("Could not write movie '" + recorder.getFilePath() + "': " + e.getMessage());
+				}
+			}));
+		}
+		
+		if (tracePath != null) {
+			try {
+				cpu.setTraceRecorder(new TraceRecorder(tracePath));
+			} catch (IOException e) {
+				System.err.println("Could not trace to '" + tracePath + "': " + e.getMessage());
+			}
+		}
+		
+		// A trace started here or from the debugger still has entries buffered
+		// when the window closes
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			TraceRecorder trace = cpu.setTraceRecorder(null);
+			
+			if (trace != null) {
+				try {
+					trace.close();
+					System.out.println("Traced " + trace.getEntriesWritten() + " steps to " + trace.getFilePath());
+				} catch (IOException e) {
+					System.err.println("Could not write trace '" + trace.getFilePath() + "': " + e.getMessage());
+				}
+			}
+		}));
+		
+		new Display(cpu, scheduler, repository, clockSpeed);
+	}
+	
+	private static void replay(CPU cpu, ROMRepository repository, String romPath, String replayPath) {
+		if (romPath == null) {
+			System.err.println("A ROM is required to replay a movie");
+			System.exit(1);
+		}
+		
+		try {
+			cpu.loadROM(repository.load(romPath));
+			
+			MoviePlayer player = new MoviePlayer(cpu, Movie.load(replayPath));
+			long start = System.nanoTime();
+			player.playToEnd();
+			
+			double seconds = (System.nanoTime() - start) / 1e9;
+			double realTime = player.getFrame() / (double)TimerClock.FREQUENCY;
+			System.out.println(String.format("Replayed %d frames in %.3f s (%.0fx real time)", player.getFrame(), seconds, realTime / seconds));
+			System.out.println(String.format("Screen checksum: %016x", FrameBuffer.checksum(cpu.getScreen())));
+		} catch (IOException | IllegalStateException e) {
+			System.err.println("Could not replay '" + replayPath + "': " + e.getMessage());
+			System.exit(1);
+		}
 	}
 }
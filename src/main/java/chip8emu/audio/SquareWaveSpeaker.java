@@ -0,0 +1,83 @@
+package chip8emu.audio;
+
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import chip8emu.emulator.Speaker;
+
+public class SquareWaveSpeaker implements Speaker, Runnable {
+	private static final int SAMPLE_RATE = 44100;
+	private static final int SAMPLES_PER_PERIOD = 100;
+	private static final int PERIODS_PER_CHUNK = 4;
+	private static final int CHUNKS_BUFFERED = 4;
+	private static final byte AMPLITUDE = 24;
+	
+	private volatile boolean playing, alive;
+	private byte tone[];
+	private SourceDataLine line;
+	private Thread thread;
+	
+	public SquareWaveSpeaker() throws LineUnavailableException {
+		tone = new byte[SAMPLES_PER_PERIOD * PERIODS_PER_CHUNK];
+		
+		for (int i = 0; i < tone.length; i++) {
+			tone[i] = (i % SAMPLES_PER_PERIOD) < SAMPLES_PER_PERIOD / 2 ? AMPLITUDE : -AMPLITUDE;
+		}
+		
+		AudioFormat format = new AudioFormat(SAMPLE_RATE, 8, 1, true, false);
+		line = AudioSystem.getSourceDataLine(format);
+		line.open(format, tone.length * CHUNKS_BUFFERED);
+		line.start();
+		
+		alive = true;
+		thread = new Thread(this, "CHIP-8 Audio");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	@Override
+	public void setPlaying(boolean playing) {
+		if (this.playing == playing) {
+			return;
+		}
+		
+		this.playing = playing;
+		
+		if (playing) {
+			LockSupport.unpark(thread);
+		} else {
+			// Drop whatever is still queued so the tone stops immediately
+			line.flush();
+		}
+	}
+	
+	@Override
+	public void close() {
+		alive = false;
+		playing = false;
+		LockSupport.unpark(thread);
+		
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		line.close();
+	}
+	
+	@Override
+	public void run() {
+		while (alive) {
+			if (playing) {
+				line.write(tone, 0, tone.length);
+			} else {
+				LockSupport.park(this);
+			}
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package chip8emu.batch;
+
+public class BatchJob {
+	private String romPath;
+	private long seed;
+	
+	public BatchJob(String romPath, long seed) {
+		this.romPath = romPath;
+		this.seed = seed;
+	}
+	
+	public String getROMPath() {
+		return romPath;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+}
@@ -0,0 +1,51 @@
+package chip8emu.batch;
+
+public class BatchResult {
+	private BatchJob job;
+	private String romHash;
+	private long frames, instructions, unknownOpcodes, checksum, nanos;
+	private String error;
+	
+	public BatchResult(BatchJob job, String romHash, long frames, long instructions, long unknownOpcodes, long checksum, long nanos, String error) {
+		this.job = job;
+		this.romHash = romHash;
+		this.frames = frames;
+		this.instructions = instructions;
+		this.unknownOpcodes = unknownOpcodes;
+		this.checksum = checksum;
+		this.nanos = nanos;
+		this.error = error;
+	}
+	
+	public BatchJob getJob() {
+		return job;
+	}
+	
+	public String getROMHash() {
+		return romHash;
+	}
+	
+	public long getFrames() {
+		return frames;
+	}
+	
+	public long getInstructions() {
+		return instructions;
+	}
+	
+	public long getUnknownOpcodes() {
+		return unknownOpcodes;
+	}
+	
+	public long getChecksum() {
+		return checksum;
+	}
+	
+	public long getNanos() {
+		return nanos;
+	}
+	
+	public String getError() {
+		return error;
+	}
+}
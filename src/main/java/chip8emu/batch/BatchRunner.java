@@ -0,0 +1,181 @@
+package chip8emu.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import chip8emu.emulator.CPU;
+import chip8emu.emulator.CPUPool;
+import chip8emu.emulator.FrameBuffer;
+import chip8emu.emulator.ROM;
+import chip8emu.emulator.ROMRepository;
+import chip8emu.emulator.Scheduler;
+import chip8emu.emulator.TimerClock;
+
+public class BatchRunner {
+	public static final int DEFAULT_FRAMES = 600;
+	
+	private int frames;
+	private int instructionsPerFrame;
+	private boolean blockDispatch;
+	private ROMRepository repository;
+	private CPUPool cpuPool;
+	
+	public BatchRunner(int frames, int clockSpeed, boolean blockDispatch) {
+		if (frames < 0 || clockSpeed <= 0) {
+			throw new IllegalArgumentException("Frames must not be negative and the clock speed must be positive");
+		}
+		
+		this.frames = frames;
+		this.blockDispatch = blockDispatch;
+		instructionsPerFrame = Math.max(clockSpeed / TimerClock.FREQUENCY, 1);
+		repository = new ROMRepository();
+		cpuPool = new CPUPool();
+	}
+	
+	public BatchResult run(BatchJob job) {
+		long start = System.nanoTime();
+		CPU cpu = cpuPool.acquire();
+		String romHash = null;
+		long startInstructions = cpu.getInstructionCount();
+		
+		try {
+			ROM rom = repository.load(job.getROMPath());
+			romHash = rom.getHash();
+			
+			cpu.setBlockDispatch(blockDispatch);
+			cpu.setDeterministic(true);
+			cpu.setSeed(job.getSeed());
+			cpu.loadROM(rom);
+			
+			for (int i = 0; i < frames; i++) {
+				cpu.runFrame(instructionsPerFrame, 0);
+			}
+			
+			return new BatchResult(job, romHash, cpu.getFrame(), cpu.getInstructionCount() - startInstructions, cpu.getUnknownOpcodes(),
+				FrameBuffer.checksum(cpu.getScreen()), System.nanoTime() - start, null);
+		} catch (IOException | RuntimeException e) {
+			// A crashing ROM is a result like any other, the rest of the batch carries on
+			return new BatchResult(job, romHash, cpu.getFrame(), cpu.getInstructionCount() - startInstructions, cpu.getUnknownOpcodes(),
+				FrameBuffer.checksum(cpu.getScreen()), System.nanoTime() - start, e.toString());
+		} finally {
+			cpuPool.release(cpu);
+		}
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int frames = DEFAULT_FRAMES;
+		int clockSpeed = Scheduler.DEFAULT_CLOCK_SPEED;
+		int seeds = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean blockDispatch = false;
+		String format = "csv";
+		String outputPath = null;
+		List<String> romPaths = new ArrayList<String>();
+		
+		for (String arg : args) {
+			if (arg.startsWith("--frames=")) {
+				frames = Integer.parseInt(arg.substring("--frames=".length()));
+			} else if (arg.startsWith("--clock=")) {
+				clockSpeed = Integer.parseInt(arg.substring("--clock=".length()));
+			} else if (arg.startsWith("--seeds=")) {
+				seeds = Integer.parseInt(arg.substring("--seeds=".length()));
+			} else if (arg.startsWith("--threads=")) {
+				threads = Integer.parseInt(arg.substring("--threads=".length()));
+			} else if (arg.startsWith("--format=")) {
+				format = arg.substring("--format=".length());
+			} else if (arg.startsWith("--output=")) {
+				outputPath = arg.substring("--output=".length());
+			} else if (arg.equals("--block-dispatch")) {
+				blockDispatch = true;
+			} else {
+				addROMs(Paths.get(arg), romPaths);
+			}
+		}
+		
+		if (romPaths.isEmpty()) {
+			System.err.println("Usage: BatchRunner [--frames=n] [--clock=hz] [--seeds=n] [--threads=n] [--format=csv|json] [--output=file] [--block-dispatch] <rom or directory>...");
+			System.exit(1);
+		}
+		
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		
+		for (String romPath : romPaths) {
+			for (int seed = 0; seed < seeds; seed++) {
+				jobs.add(new BatchJob(romPath, seed));
+			}
+		}
+		
+		BatchRunner runner = new BatchRunner(frames, clockSpeed, blockDispatch);
+		Writer out = outputPath != null
+			? Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)
+			: new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+		ReportWriter report = ReportWriter.create(format, out);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<Future<BatchResult>> results = new ArrayList<Future<BatchResult>>(jobs.size());
+		
+		long start = System.nanoTime();
+		
+		for (BatchJob job : jobs) {
+			results.add(pool.submit(() -> runner.run(job)));
+		}
+		
+		// Results are written in job order as they complete, so reports are
+		// stable across runs while still streaming out
+		long instructions = 0;
+		int failures = 0;
+		report.begin();
+		
+		for (Future<BatchResult> future : results) {
+			BatchResult result;
+			
+			try {
+				result = future.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+			
+			report.write(result);
+			instructions += result.getInstructions();
+			
+			if (result.getError() != null) {
+				failures++;
+			}
+		}
+		
+		report.end();
+		pool.shutdown();
+		
+		if (outputPath != null) {
+			out.close();
+		}
+		
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.err.println(String.format(Locale.ROOT, "%d jobs (%d failed) on %d threads in %.3f s: %.1f instances/s, %.0f instructions/s",
+			jobs.size(), failures, threads, seconds, jobs.size() / seconds, instructions / seconds));
+	}
+	
+	private static void addROMs(Path path, List<String> romPaths) throws IOException {
+		if (!Files.isDirectory(path)) {
+			romPaths.add(path.toString());
+			return;
+		}
+		
+		try (Stream<Path> files = Files.walk(path)) {
+			romPaths.addAll(files.filter(Files::isRegularFile).map(Path::toString).sorted().collect(Collectors.toList()));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package chip8emu.batch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+public abstract class ReportWriter {
+	protected Writer out;
+	
+	protected ReportWriter(Writer out) {
+		this.out = out;
+	}
+	
+	public static ReportWriter create(String format, Writer out) {
+		if (format.equalsIgnoreCase("csv")) {
+			return new CSVReportWriter(out);
+		} else if (format.equalsIgnoreCase("json")) {
+			return new JSONReportWriter(out);
+		}
+		
+		throw new IllegalArgumentException("Unknown report format '" + format + "', expected csv or json");
+	}
+	
+	public abstract void begin() throws IOException;
+	public abstract void write(BatchResult result) throws IOException;
+	public abstract void end() throws IOException;
+	
+	private static class CSVReportWriter extends ReportWriter {
+		private CSVReportWriter(Writer out) {
+			super(out);
+		}
+		
+		@Override
+		public void begin() throws IOException {
+			out.write("rom,hash,seed,frames,instructions,unknown,checksum,millis,error\n");
+		}
+		
+		@Override
+		public void write(BatchResult result) throws IOException {
+			out.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%016x,%.3f,%s\n",
+				quote(result.getJob().getROMPath()), result.getROMHash() != null ? result.getROMHash() : "", result.getJob().getSeed(),
+				result.getFrames(), result.getInstructions(), result.getUnknownOpcodes(), result.getChecksum(),
+				result.getNanos() / 1e6, result.getError() != null ? quote(result.getError()) : ""));
+		}
+		
+		@Override
+		public void end() throws IOException {
+			out.flush();
+		}
+		
+		private static String quote(String value) {
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+				return value;
+			}
+			
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+	}
+	
+	private static class JSONReportWriter extends ReportWriter {
+		private boolean first;
+		
+		private JSONReportWriter(Writer out) {
+			super(out);
+		}
+		
+		@Override
+		public void begin() throws IOException {
+			first = true;
+			out.write("[\n");
+		}
+		
+		@Override
+		public void write(BatchResult result) throws IOException {
+			out.write(first ? "  " : ",\n  ");
+			out.write(String.format(Locale.ROOT, "{\"rom\": %s, \"hash\": %s, \"seed\": %d, \"frames\": %d, \"instructions\": %d, \"unknown\": %d, \"checksum\": \"%016x\", \"millis\": %.3f, \"error\": %s}",
+				quote(result.getJob().getROMPath()), quote(result.getROMHash()), result.getJob().getSeed(),
+				result.getFrames(), result.getInstructions(), result.getUnknownOpcodes(), result.getChecksum(),
+				result.getNanos() / 1e6, quote(result.getError())));
+			first = false;
+		}
+		
+		@Override
+		public void end() throws IOException {
+			out.write("\n]\n");
+			out.flush();
+		}
+		
+		private static String quote(String value) {
+			if (value == null) {
+				return "null";
+			}
+			
+			StringBuilder quoted = new StringBuilder(value.length() + 2);
+			quoted.append('"');
+			
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				
+				if (c == '"' || c == '\\') {
+					quoted.append('\\').append(c);
+				} else if (c < 0x20) {
+					quoted.append(String.format("\\u%04x", (int)c));
+				} else {
+					quoted.append(c);
+				}
+			}
+			
+			return quoted.append('"').toString();
+		}
+	}
+}
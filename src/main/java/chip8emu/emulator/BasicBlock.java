@@ -0,0 +1,21 @@
+package chip8emu.emulator;
+
+public class BasicBlock {
+	public static final int MAX_LENGTH = 32;
+	
+	Instruction instructions[];
+	int start, length;
+	boolean valid;
+	
+	BasicBlock() {
+		instructions = new Instruction[MAX_LENGTH];
+	}
+	
+	public int getStart() {
+		return start;
+	}
+	
+	public int getLength() {
+		return length;
+	}
+}
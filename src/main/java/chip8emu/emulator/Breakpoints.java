@@ -0,0 +1,188 @@
+package chip8emu.emulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Breakpoints {
+	public static final int ANY_CHANGE = -1;
+	
+	private boolean addresses[], readWatches[], writeWatches[];
+	private int addressCount, watchCount;
+	private int runTo;
+	private List<RegisterCondition> conditions;
+	private volatile boolean armed;
+	
+	public Breakpoints() {
+		addresses = new boolean[4096];
+		readWatches = new boolean[4096];
+		writeWatches = new boolean[4096];
+		conditions = new ArrayList<RegisterCondition>();
+		runTo = -1;
+	}
+	
+	public synchronized void addBreakpoint(int address) {
+		if (!addresses[address & 0xfff]) {
+			addresses[address & 0xfff] = true;
+			addressCount++;
+			updateArmed();
+		}
+	}
+	
+	public synchronized void removeBreakpoint(int address) {
+		if (addresses[address & 0xfff]) {
+			addresses[address & 0xfff] = false;
+			addressCount--;
+			updateArmed();
+		}
+	}
+	
+	public synchronized void addWatchpoint(int address, boolean read, boolean write) {
+		address &= 0xfff;
+		boolean watched = readWatches[address] || writeWatches[address];
+		readWatches[address] |= read;
+		writeWatches[address] |= write;
+		
+		if (!watched && (read || write)) {
+			watchCount++;
+		}
+		
+		updateArmed();
+	}
+	
+	public synchronized void removeWatchpoint(int address, boolean read, boolean write) {
+		address &= 0xfff;
+		boolean watched = readWatches[address] || writeWatches[address];
+		readWatches[address] &= !read;
+		writeWatches[address] &= !write;
+		
+		if (watched && !readWatches[address] && !writeWatches[address]) {
+			watchCount--;
+		}
+		
+		updateArmed();
+	}
+	
+	public synchronized void addCondition(int register, int value) {
+		conditions.add(new RegisterCondition(register & 0xf, value));
+		updateArmed();
+	}
+	
+	public synchronized void removeCondition(int register, int value) {
+		for (int i = 0; i < conditions.size(); i++) {
+			RegisterCondition condition = conditions.get(i);
+			
+			if (condition.register == (register & 0xf) && condition.value == value) {
+				conditions.remove(i);
+				break;
+			}
+		}
+		
+		updateArmed();
+	}
+	
+	public synchronized void setRunTo(int address) {
+		runTo = address < 0 ? -1 : address & 0xfff;
+		updateArmed();
+	}
+	
+	public synchronized void clear() {
+		Arrays.fill(addresses, false);
+		Arrays.fill(readWatches, false);
+		Arrays.fill(writeWatches, false);
+		addressCount = 0;
+		watchCount = 0;
+		conditions.clear();
+		runTo = -1;
+		updateArmed();
+	}
+	
+	public boolean isArmed() {
+		return armed;
+	}
+	
+	// The checks below are only called from CPU's instrumented path, which
+	// holds this object's lock for the whole run
+	
+	String checkBefore(int pc, Instruction instruction, int iRegister) {
+		if (pc == runTo) {
+			runTo = -1;
+			updateArmed();
+			return String.format("Reached %x", pc);
+		}
+		
+		if (addresses[pc]) {
+			return String.format("Breakpoint at %x", pc);
+		}
+		
+		if (watchCount == 0) {
+			return null;
+		}
+		
+		// Memory is only accessed through I, so the range an instruction
+		// touches is known before it runs
+		int opcode = instruction.opcode;
+		
+		switch ((opcode >> 12) & 0xf) {
+		case 0xd:
+			return checkRange(readWatches, "Read", pc, iRegister, instruction.n);
+		case 0xf:
+			switch (opcode & 0x00ff) {
+			case 0x33:
+				return checkRange(writeWatches, "Write", pc, iRegister, 3);
+			case 0x55:
+				return checkRange(writeWatches, "Write", pc, iRegister, instruction.x + 1);
+			case 0x65:
+				return checkRange(readWatches, "Read", pc, iRegister, instruction.x + 1);
+			}
+		}
+		
+		return null;
+	}
+	
+	boolean hasConditions() {
+		return !conditions.isEmpty();
+	}
+	
+	String checkAfter(byte previous[], byte registers[]) {
+		for (int i = 0; i < conditions.size(); i++) {
+			RegisterCondition condition = conditions.get(i);
+			int value = registers[condition.register] & 0xff;
+			
+			if (condition.value == ANY_CHANGE) {
+				if (value != (previous[condition.register] & 0xff)) {
+					return String.format("V%X changed to %x", condition.register, value);
+				}
+			} else if (value == condition.value && (previous[condition.register] & 0xff) != value) {
+				return String.format("V%X became %x", condition.register, value);
+			}
+		}
+		
+		return null;
+	}
+	
+	private String checkRange(boolean watches[], String access, int pc, int start, int length) {
+		for (int i = 0; i < length; i++) {
+			int address = (start + i) & 0xfff;
+			
+			if (watches[address]) {
+				return String.format("%s of %x at %x", access, address, pc);
+			}
+		}
+		
+		return null;
+	}
+	
+	private void updateArmed() {
+		armed = addressCount > 0 || watchCount > 0 || runTo >= 0 || !conditions.isEmpty();
+	}
+	
+	private static class RegisterCondition {
+		private int register, value;
+		
+		private RegisterCondition(int register, int value) {
+			this.register = register;
+			this.value = value;
+		}
+	}
+}
@@ -1,76 +1,260 @@
 package chip8emu.emulator;
 
-import java.awt.Toolkit;
-import java.util.Random;
-
-import chip8emu.gui.Display;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class CPU {
-	private short pc;
-	private short sp;
+	private static final int FONT_ADDRESS = 0x000;
+	private static final int FONT_HEIGHT = 5;
+	private static final byte FONT[] = {
+		(byte)0xf0, (byte)0x90, (byte)0x90, (byte)0x90, (byte)0xf0, // 0
+		(byte)0x20, (byte)0x60, (byte)0x20, (byte)0x20, (byte)0x70, // 1
+		(byte)0xf0, (byte)0x10, (byte)0xf0, (byte)0x80, (byte)0xf0, // 2
+		(byte)0xf0, (byte)0x10, (byte)0xf0, (byte)0x10, (byte)0xf0, // 3
+		(byte)0x90, (byte)0x90, (byte)0xf0, (byte)0x10, (byte)0x10, // 4
+		(byte)0xf0, (byte)0x80, (byte)0xf0, (byte)0x10, (byte)0xf0, // 5
+		(byte)0xf0, (byte)0x80, (byte)0xf0, (byte)0x90, (byte)0xf0, // 6
+		(byte)0xf0, (byte)0x10, (byte)0x20, (byte)0x40, (byte)0x40, // 7
+		(byte)0xf0, (byte)0x90, (byte)0xf0, (byte)0x90, (byte)0xf0, // 8
+		(byte)0xf0, (byte)0x90, (byte)0xf0, (byte)0x10, (byte)0xf0, // 9
+		(byte)0xf0, (byte)0x90, (byte)0xf0, (byte)0x90, (byte)0x90, // A
+		(byte)0xe0, (byte)0x90, (byte)0xe0, (byte)0x90, (byte)0xe0, // B
+		(byte)0xf0, (byte)0x80, (byte)0x80, (byte)0x80, (byte)0xf0, // C
+		(byte)0xe0, (byte)0x90, (byte)0x90, (byte)0x90, (byte)0xe0, // D
+		(byte)0xf0, (byte)0x80, (byte)0xf0, (byte)0x80, (byte)0xf0, // E
+		(byte)0xf0, (byte)0x80, (byte)0xf0, (byte)0x80, (byte)0x80  // F
+	};
+	
+	private int pc;
+	private int sp;
 	private short stack[];
-	private short iRegister;
-	private short memory[];
-	private short digitLocations[];
-	private short registers[];
-	private short opcode;
+	private int iRegister;
+	private byte memory[];
+	private byte registers[];
+	private int opcode;
 	private int delayTimer, soundTimer;
 	private int keyRegister;
 	private boolean awaitingKey;
 	private boolean keys[];
-	private boolean running;
-	private OpcodeHandler opcodeHandlers[];
-	private Random random;
+	private volatile boolean running;
+	private boolean deterministic, seeded;
+	private long seed, frame, instructionCount, unknownOpcodes;
+	private int inputMask, latchedMask;
+	private int frameRemaining, frameKeyMask;
+	private Breakpoints breakpoints;
+	private byte previousRegisters[];
+	private long breakInstruction;
+	private String breakReason;
+	private volatile TraceRecorder traceRecorder;
+	private volatile Profiler profiler;
+	private OpcodeHandler opcodeHandlers[], systemHandlers[], arithmeticHandlers[], keyHandlers[], miscHandlers[];
+	private OpcodeHandler unknownHandler;
+	private Instruction decoded[], scratchInstruction;
+	private BasicBlock blocks[];
+	private boolean blockCode[];
+	private boolean blockDispatch;
+	private XorShiftRandom random;
 	private ROM activeROM;
-	private Display display;
+	private Screen screen, defaultScreen;
+	private Speaker speaker, defaultSpeaker;
 	
 	public CPU() {
-		random = new Random();
+		random = new XorShiftRandom();
+		defaultSpeaker = new NullSpeaker();
+		defaultScreen = new FrameBuffer();
+		speaker = defaultSpeaker;
+		screen = defaultScreen;
+		decoded = new Instruction[2048];
+		scratchInstruction = new Instruction();
+		blocks = new BasicBlock[2048];
+		blockCode = new boolean[4096];
+		stack = new short[32];
+		registers = new byte[16];
+		keys = new boolean[16];
+		memory = new byte[4096];
+		keyRegister = -1;
+		breakpoints = new Breakpoints();
+		previousRegisters = new byte[16];
+		breakInstruction = -1;
 		running = true;
 		
 		loadOpcodeHandlers();
 	}
 	
-	public void reset() {
-		stack = new short[32];
-		registers = new short[16];
-		digitLocations = new short[16];
-		keys = new boolean[16];
-		memory = new short[4096];
+	public synchronized void reset() {
+		// Everything is cleared in place so a CPU can be reset over and over
+		// without allocating
+		Arrays.fill(stack, (short)0);
+		Arrays.fill(registers, (byte)0);
+		Arrays.fill(keys, false);
+		Arrays.fill(memory, (byte)0);
+		System.arraycopy(FONT, 0, memory, FONT_ADDRESS, FONT.length);
+		
 		awaitingKey = false;
+		keyRegister = -1;
+		delayTimer = 0;
+		soundTimer = 0;
+		speaker.setPlaying(false);
 		
-		pc = 0x200;
+		pc = ROM.LOAD_ADDRESS;
 		sp = -1;
+		iRegister = 0;
+		opcode = 0;
+		frame = 0;
+		unknownOpcodes = 0;
+		frameRemaining = 0;
+		breakInstruction = -1;
+		breakReason = null;
 		
-		loadSprites();
+		if (profiler != null) {
+			profiler.clear();
+		}
 		
-		if (display != null) {
-			display.clear();
+		if (seeded) {
+			random.setSeed(seed);
 		}
+		
+		invalidateDecoded();
+		invalidateBlocks();
+		screen.clear();
+	}
+	
+	public synchronized void reinitialize() {
+		// Unlike reset(), this also drops everything a previous user of the
+		// CPU configured, leaving it as a new CPU would be
+		activeROM = null;
+		deterministic = false;
+		seeded = false;
+		seed = 0;
+		inputMask = 0;
+		latchedMask = 0;
+		blockDispatch = false;
+		traceRecorder = null;
+		profiler = null;
+		breakpoints.clear();
+		instructionCount = 0;
+		running = true;
+		
+		speaker.setPlaying(false);
+		speaker = defaultSpeaker;
+		screen = defaultScreen;
+		random.setSeed(System.nanoTime());
+		reset();
 	}
 	
-	public void loadROM(String filePath) {
+	public void loadROM(String filePath) throws IOException {
+		loadROM(new ROM(filePath));
+	}
+	
+	public synchronized void loadROM(ROM rom) {
 		reset();
-		activeROM = new ROM(filePath);
+		activeROM = rom;
+		rom.copyTo(memory, ROM.LOAD_ADDRESS);
+	}
+	
+	public synchronized void saveState(SaveState state) {
+		if (activeROM == null) {
+			throw new IllegalStateException("No ROM is loaded");
+		}
+		
+		ByteBuffer buffer = state.begin(activeROM.getHash());
+		buffer.putShort((short)pc);
+		buffer.put((byte)sp);
+		buffer.putShort((short)iRegister);
+		buffer.putShort((short)opcode);
+		buffer.put((byte)delayTimer);
+		buffer.put((byte)soundTimer);
+		buffer.put((byte)(awaitingKey ? 1 : 0));
+		buffer.put((byte)keyRegister);
+		buffer.putLong(frame);
+		buffer.putShort((short)getKeyMask());
+		buffer.put(registers);
+		
+		for (int i = 0; i < stack.length; i++) {
+			buffer.putShort(stack[i]);
+		}
 		
-		short data;
-		int i = 0x200;
+		buffer.putLong(random.getState());
+		buffer.put(memory);
 		
-		while ((data = activeROM.nextByte()) != -1) {
-			memory[i] = data;
-			i++;
+		for (int y = 0; y < FrameBuffer.HEIGHT; y++) {
+			buffer.putLong(screen.getRow(y));
 		}
 		
-		activeROM.close();
-		System.out.println("Loaded ROM: " + activeROM.getFilePath());
+		buffer.flip();
 	}
 	
-	public void keyPressed(int keyCode, boolean pressed) {
+	public synchronized void loadState(SaveState state) {
+		if (activeROM == null || !activeROM.getHash().equals(state.getROMHash())) {
+			throw new IllegalArgumentException("Save state was taken with a different ROM");
+		}
+		
+		ByteBuffer buffer = state.open();
+		checkState(buffer.duplicate());
+		pc = buffer.getShort() & 0xfff;
+		sp = buffer.get();
+		iRegister = buffer.getShort() & 0xfff;
+		opcode = buffer.getShort() & 0xffff;
+		delayTimer = buffer.get() & 0xff;
+		soundTimer = buffer.get() & 0xff;
+		awaitingKey = buffer.get() != 0;
+		keyRegister = buffer.get();
+		frame = buffer.getLong();
+		int keyMask = buffer.getShort() & 0xffff;
+		buffer.get(registers);
+		
+		for (int i = 0; i < stack.length; i++) {
+			stack[i] = buffer.getShort();
+		}
+		
+		random.setState(buffer.getLong());
+		buffer.get(memory);
+		
+		// Host input is live outside deterministic mode and is left alone
+		if (deterministic) {
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = ((keyMask >> i) & 1) != 0;
+			}
+		}
+		
+		for (int y = 0; y < FrameBuffer.HEIGHT; y++) {
+			screen.setRow(y, buffer.getLong());
+		}
+		
+		frameRemaining = 0;
+		breakInstruction = -1;
+		invalidateDecoded();
+		invalidateBlocks();
+		speaker.setPlaying(running && soundTimer > 0);
+	}
+	
+	public synchronized MachineState snapshot() {
+		return new MachineState(pc, sp, iRegister, opcode, delayTimer, soundTimer, getKeyMask(),
+			frame, instructionCount, running, awaitingKey, activeROM != null ? activeROM.getFileName() : null,
+			breakReason, registers, stack, memory,
+			profiler != null ? profiler.getAddressHits() : null, profiler != null ? profiler.getFamilyCounts() : null);
+	}
+	
+	public synchronized void keyPressed(int keyCode, boolean pressed) {
+		// Deterministic runs only see input at frame boundaries, and a key
+		// tapped between two frames still shows up as held for one frame
+		if (deterministic) {
+			if (pressed) {
+				inputMask |= 1 << keyCode;
+				latchedMask |= 1 << keyCode;
+			} else {
+				inputMask &= ~(1 << keyCode);
+			}
+			
+			return;
+		}
+		
 		if (pressed) {
 			awaitingKey = false;
 			
 			if (keyRegister >= 0) {
-				registers[keyRegister] = (short)keyCode;
+				registers[keyRegister] = (byte)keyCode;
 				keyRegister = -1;
 			}
 		}
@@ -78,61 +262,201 @@ public class CPU {
 		keys[keyCode] = pressed;
 	}
 	
-	public void step() {
-		if (!awaitingKey && activeROM != null) {
-			opcode = memory[pc];
-			opcode <<= 8;
-			opcode += memory[pc + 1];
-			
-			int leading = (opcode >> 12) & 0xf;
-			opcodeHandlers[leading].run();
-			
-			if (delayTimer > 0) {
-				delayTimer--;
+	public synchronized void step() {
+		TraceRecorder trace = traceRecorder;
+		Profiler profile = profiler;
+		
+		if (trace == null && profile == null) {
+			execute();
+			return;
+		}
+		
+		long count = instructionCount;
+		int address = pc;
+		System.arraycopy(registers, 0, previousRegisters, 0, registers.length);
+		execute();
+		
+		if (instructionCount != count) {
+			if (trace != null && !trace.record(address, opcode, iRegister, previousRegisters, registers)) {
+				traceRecorder = null;
 			}
 			
-			if (soundTimer > 0) {
-				soundTimer--;
-				Toolkit.getDefaultToolkit().beep();
+			if (profile != null) {
+				profile.record(address, opcode);
 			}
+		}
+	}
+	
+	public synchronized void run(int count) {
+		runFor(count);
+	}
+	
+	public synchronized int runFrame(int instructions) {
+		// A frame a break cut short is finished with the keys it started with
+		if (frameRemaining == 0) {
+			frameKeyMask = inputMask | latchedMask;
+			latchedMask = 0;
+		}
+		
+		int keyMask = frameKeyMask;
+		runFrame(instructions, keyMask);
+		return keyMask;
+	}
+	
+	public synchronized void runFrame(int instructions, int keyMask) {
+		// A break partway through a frame keeps the rest of its budget, and
+		// the timers only tick and the frame only advances once that has run
+		if (frameRemaining == 0) {
+			applyKeys(keyMask);
+			frameRemaining = instructions;
+		}
+		
+		frameRemaining -= runFor(frameRemaining);
+		
+		if (frameRemaining > 0) {
+			return;
+		}
+		
+		tickTimers();
+		frame++;
+	}
+	
+	public synchronized void tickTimers() {
+		if (delayTimer > 0) {
+			delayTimer--;
+		}
+		
+		if (soundTimer > 0) {
+			soundTimer--;
 			
-			pc += 2;
+			if (soundTimer == 0) {
+				speaker.setPlaying(false);
+			}
 		}
 	}
 	
-	public void toggleRunning() {
+	public synchronized void toggleRunning() {
 		running = !running;
+		
+		if (running) {
+			breakReason = null;
+		}
+		
+		speaker.setPlaying(running && soundTimer > 0);
 	}
 	
 	public boolean getRunning() {
 		return running;
 	}
 	
-	public void setDisplay(Display display) {
-		this.display = display;
+	public synchronized void setDeterministic(boolean deterministic) {
+		this.deterministic = deterministic;
+		inputMask = 0;
+		latchedMask = 0;
+		frameRemaining = 0;
+	}
+	
+	public boolean getDeterministic() {
+		return deterministic;
+	}
+	
+	public synchronized void setSeed(long seed) {
+		this.seed = seed;
+		seeded = true;
+		random.setSeed(seed);
+	}
+	
+	public boolean isSeeded() {
+		return seeded;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	public long getFrame() {
+		return frame;
+	}
+	
+	public long getInstructionCount() {
+		return instructionCount;
+	}
+	
+	public long getUnknownOpcodes() {
+		return unknownOpcodes;
+	}
+	
+	public synchronized void setBlockDispatch(boolean blockDispatch) {
+		this.blockDispatch = blockDispatch;
 	}
 	
-	public short getOpcode() {
+	public boolean getBlockDispatch() {
+		return blockDispatch;
+	}
+	
+	public Breakpoints getBreakpoints() {
+		return breakpoints;
+	}
+	
+	public String getBreakReason() {
+		return breakReason;
+	}
+	
+	// Returns the recorder that was replaced, so the caller can close it
+	// knowing the CPU no longer writes to it
+	public synchronized TraceRecorder setTraceRecorder(TraceRecorder traceRecorder) {
+		TraceRecorder previous = this.traceRecorder;
+		this.traceRecorder = traceRecorder;
+		return previous;
+	}
+	
+	public TraceRecorder getTraceRecorder() {
+		return traceRecorder;
+	}
+	
+	public synchronized void setProfiler(Profiler profiler) {
+		this.profiler = profiler;
+	}
+	
+	public Profiler getProfiler() {
+		return profiler;
+	}
+	
+	public synchronized void setScreen(Screen screen) {
+		this.screen = screen;
+	}
+	
+	public Screen getScreen() {
+		return screen;
+	}
+	
+	public synchronized void setSpeaker(Speaker speaker) {
+		this.speaker.setPlaying(false);
+		this.speaker = speaker;
+		speaker.setPlaying(soundTimer > 0);
+	}
+	
+	public int getOpcode() {
 		return opcode;
 	}
 	
-	public short getPC() {
+	public int getPC() {
 		return pc;
 	}
 	
-	public short getSP() {
+	public int getSP() {
 		return sp;
 	}
 	
-	public short getI() {
+	public int getI() {
 		return iRegister;
 	}
 	
-	public short[] getRegisters() {
+	public byte[] getRegisters() {
 		return registers;
 	}
 	
-	public short[] getMemory() {
+	public byte[] getMemory() {
 		return memory;
 	}
 	
@@ -152,318 +476,625 @@ public class CPU {
 		return soundTimer;
 	}
 	
+	public int getKeyMask() {
+		int mask = 0;
+		
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i]) {
+				mask |= 1 << i;
+			}
+		}
+		
+		return mask;
+	}
+	
 	public ROM getActiveROM() {
 		return activeROM;
 	}
 	
-	private void saveSprite(int digit, int startAddress, short[] bytes) {
-		digitLocations[digit] = (short)startAddress;
+	private void execute() {
+		if (!awaitingKey && activeROM != null) {
+			Instruction instruction = fetch();
+			opcode = instruction.opcode;
+			instruction.handler.run(instruction);
+			
+			pc = (pc + 2) & 0xfff;
+			instructionCount++;
+		}
+	}
+	
+	private void checkState(ByteBuffer buffer) {
+		// A damaged or hand-edited file would otherwise only fail later, in
+		// 00EE, 2nnn or keyPressed, so it is refused before anything changes
+		int statePC = buffer.getShort() & 0xffff;
+		int stateSP = buffer.get();
+		int stateI = buffer.getShort() & 0xffff;
+		buffer.position(buffer.position() + 5);
+		int stateKeyRegister = buffer.get();
+		buffer.position(buffer.position() + 8 + 2 + registers.length);
+		
+		if (statePC > 0xfff || stateI > 0xfff) {
+			throw new IllegalArgumentException("Save state has an address outside memory");
+		}
 		
-		for (int i = 0; i < bytes.length; i++) {
-			memory[startAddress + i] = bytes[i];
+		if (stateSP < -1 || stateSP >= stack.length) {
+			throw new IllegalArgumentException("Save state has an invalid stack pointer " + stateSP);
+		}
+		
+		if (stateKeyRegister < -1 || stateKeyRegister >= registers.length) {
+			throw new IllegalArgumentException("Save state waits for a key in invalid register " + stateKeyRegister);
+		}
+		
+		for (int i = 0; i < stack.length; i++) {
+			if ((buffer.getShort() & 0xffff) > 0xfff) {
+				throw new IllegalArgumentException("Save state has a return address outside memory");
+			}
 		}
 	}
 	
-	private void loadSprites() {
-		saveSprite(0x0, 0, new short[] { 0xf0, 0x90, 0x90, 0x90, 0xf0 });
-		saveSprite(0x1, 5, new short[] { 0x20, 0x60, 0x20, 0x20, 0x70 });
-		saveSprite(0x2, 10, new short[] { 0xf0, 0x10, 0xf0, 0x80, 0xf0 });
-		saveSprite(0x3, 15, new short[] { 0xf0, 0x10, 0xf0, 0x10, 0xf0 });
-		saveSprite(0x4, 20, new short[] { 0x90, 0x90, 0xf0, 0x10, 0x10 });
-		saveSprite(0x5, 25, new short[] { 0xf0, 0x80, 0xf0, 0x10, 0xf0 });
-		saveSprite(0x6, 30, new short[] { 0xf0, 0x80, 0xf0, 0x90, 0xf0 });
-		saveSprite(0x7, 35, new short[] { 0xf0, 0x10, 0x20, 0x40, 0x40 });
-		saveSprite(0x8, 40, new short[] { 0xf0, 0x90, 0xf0, 0x90, 0xf0 });
-		saveSprite(0x9, 45, new short[] { 0xf0, 0x90, 0xf0, 0x10, 0xf0 });
-		saveSprite(0xa, 50, new short[] { 0xf0, 0x90, 0xf0, 0x90, 0x90 });
-		saveSprite(0xb, 55, new short[] { 0xe0, 0x90, 0xe0, 0x90, 0xe0 });
-		saveSprite(0xc, 60, new short[] { 0xf0, 0x80, 0x80, 0x80, 0xf0 });
-		saveSprite(0xd, 65, new short[] { 0xe0, 0x90, 0x90, 0x90, 0xe0 });
-		saveSprite(0xe, 70, new short[] { 0xf0, 0x80, 0xf0, 0x80, 0xf0 });
-		saveSprite(0xf, 75, new short[] { 0xf0, 0x80, 0xf0, 0x80, 0x80 });
+	private int runFor(int count) {
+		// Returns how much of the count was used up, which only falls short
+		// when a break stops the CPU
+		if (breakpoints.isArmed() || traceRecorder != null || profiler != null) {
+			return runInstrumented(count);
+		} else if (blockDispatch) {
+			for (int executed = 0; executed < count;) {
+				int length = executeBlock(count - executed);
+				
+				if (length == 0) {
+					break;
+				}
+				
+				executed += length;
+			}
+		} else {
+			for (int i = 0; i < count; i++) {
+				execute();
+			}
+		}
+		
+		return count;
 	}
 	
-	private void loadOpcodeHandlers() {
-		opcodeHandlers = new OpcodeHandler[] {
-			// 0???
-			() -> {
-				int type = opcode & 0x00ff;
+	private int runInstrumented(int count) {
+		// Kept apart from execute() so that runs without anything armed,
+		// traced or profiled never pay for the checks
+		synchronized (breakpoints) {
+			TraceRecorder trace = traceRecorder;
+			Profiler profile = profiler;
+			boolean checkBreaks = breakpoints.isArmed();
+			boolean checkConditions = breakpoints.hasConditions();
+			
+			int i;
+			
+			for (i = 0; i < count && running; i++) {
+				if (awaitingKey || activeROM == null) {
+					return count;
+				}
+				
+				Instruction instruction = fetch();
 				
-				if (type == 0xe0) {
-					// CLS
-					display.clear();
-				} else if (type == 0xee) {
-					// RET
-					pc = stack[sp];
-					sp--;
-				} else {
-					System.err.println(String.format("Unknown opcode: %x", opcode));
+				// The instruction a break stopped on runs when execution resumes.
+				// The break is keyed on the instruction count rather than the
+				// address, so stepping away and back to it breaks again
+				if (checkBreaks && instructionCount != breakInstruction) {
+					String reason = breakpoints.checkBefore(pc, instruction, iRegister);
+					
+					if (reason != null) {
+						breakInstruction = instructionCount;
+						pause(reason);
+						return i;
+					}
 				}
-			},
+				
+				if (checkConditions || trace != null) {
+					System.arraycopy(registers, 0, previousRegisters, 0, registers.length);
+				}
+				
+				int address = pc;
+				opcode = instruction.opcode;
+				instruction.handler.run(instruction);
+				
+				pc = (pc + 2) & 0xfff;
+				instructionCount++;
+				
+				// A recorder whose writer failed has already stopped itself
+				if (trace != null && !trace.record(address, opcode, iRegister, previousRegisters, registers)) {
+					traceRecorder = null;
+					trace = null;
+				}
+				
+				if (profile != null) {
+					profile.record(address, opcode);
+				}
+				
+				if (checkConditions) {
+					String reason = breakpoints.checkAfter(previousRegisters, registers);
+					
+					if (reason != null) {
+						pause(reason);
+						return i + 1;
+					}
+				}
+			}
+			
+			return i;
+		}
+	}
+	
+	private void pause(String reason) {
+		running = false;
+		breakReason = reason;
+		speaker.setPlaying(false);
+	}
+	
+	private int executeBlock(int budget) {
+		if (awaitingKey || activeROM == null) {
+			return 0;
+		}
+		
+		if ((pc & 1) != 0) {
+			execute();
+			return 1;
+		}
+		
+		BasicBlock block = blocks[pc >> 1];
+		
+		if (block == null) {
+			block = new BasicBlock();
+			blocks[pc >> 1] = block;
+		}
+		
+		if (!block.valid) {
+			buildBlock(block, pc);
+		}
+		
+		// Finish with single steps so run(count) executes exactly count
+		// instructions whichever way it runs
+		if (block.length > budget) {
+			execute();
+			return 1;
+		}
+		
+		// Only the last instruction of a block can branch, wait for a key or
+		// write to memory, so the rest run back to back without any checks
+		Instruction instructions[] = block.instructions;
+		
+		for (int i = 0; i < block.length; i++) {
+			Instruction instruction = instructions[i];
+			instruction.handler.run(instruction);
+			pc = (pc + 2) & 0xfff;
+		}
+		
+		opcode = instructions[block.length - 1].opcode;
+		instructionCount += block.length;
+		return block.length;
+	}
+	
+	private void buildBlock(BasicBlock block, int start) {
+		int address = start;
+		
+		block.start = start;
+		block.length = 0;
+		
+		while (block.length < BasicBlock.MAX_LENGTH && address < memory.length - 1) {
+			Instruction instruction = decodeAt(address);
+			block.instructions[block.length++] = instruction;
+			blockCode[address] = true;
+			blockCode[address + 1] = true;
+			
+			if (endsBlock(instruction.opcode)) {
+				break;
+			}
+			
+			address += 2;
+		}
+		
+		block.valid = true;
+	}
+	
+	private boolean endsBlock(int opcode) {
+		switch ((opcode >> 12) & 0xf) {
+		case 0x0:
+			return (opcode & 0x00ff) == 0xee;
+		case 0x1:
+		case 0x2:
+		case 0x3:
+		case 0x4:
+		case 0x5:
+		case 0x9:
+		case 0xb:
+		case 0xd:
+		case 0xe:
+			return true;
+		case 0xf:
+			int type = opcode & 0x00ff;
+			return type == 0x0a || type == 0x33 || type == 0x55;
+		default:
+			return false;
+		}
+	}
+	
+	private Instruction fetch() {
+		// Instructions at odd addresses are rare enough to decode every time
+		if ((pc & 1) != 0) {
+			int opcode = readOpcode(pc);
+			scratchInstruction.decode(opcode, resolveHandler(opcode));
+			return scratchInstruction;
+		}
+		
+		return decodeAt(pc);
+	}
+	
+	private Instruction decodeAt(int address) {
+		Instruction instruction = decoded[address >> 1];
+		
+		if (instruction == null) {
+			instruction = new Instruction();
+			decoded[address >> 1] = instruction;
+		}
+		
+		if (!instruction.valid) {
+			int opcode = readOpcode(address);
+			instruction.decode(opcode, resolveHandler(opcode));
+		}
+		
+		return instruction;
+	}
+	
+	private int readOpcode(int address) {
+		return (readMemory(address) << 8) | readMemory(address + 1);
+	}
+	
+	private int readMemory(int address) {
+		return memory[address & 0xfff] & 0xff;
+	}
+	
+	private void writeMemory(int address, int value) {
+		address &= 0xfff;
+		memory[address] = (byte)value;
+		
+		Instruction instruction = decoded[address >> 1];
+		
+		if (instruction != null) {
+			instruction.valid = false;
+		}
+		
+		// Self-modifying code is rare, so throw away every block rather than
+		// tracking which blocks cover the address
+		if (blockCode[address]) {
+			invalidateBlocks();
+		}
+	}
+	
+	private void applyKeys(int mask) {
+		int pressed = 0;
+		
+		for (int i = 0; i < keys.length; i++) {
+			boolean down = ((mask >> i) & 1) != 0;
+			
+			if (down && !keys[i]) {
+				pressed |= 1 << i;
+			}
+			
+			keys[i] = down;
+		}
+		
+		if (pressed != 0) {
+			awaitingKey = false;
+			
+			// Several keys going down in the same frame resolve to the lowest one
+			if (keyRegister >= 0) {
+				registers[keyRegister] = (byte)Integer.numberOfTrailingZeros(pressed);
+				keyRegister = -1;
+			}
+		}
+	}
+	
+	private void invalidateDecoded() {
+		for (int i = 0; i < decoded.length; i++) {
+			if (decoded[i] != null) {
+				decoded[i].valid = false;
+			}
+		}
+	}
+	
+	private void invalidateBlocks() {
+		for (int i = 0; i < blocks.length; i++) {
+			if (blocks[i] != null) {
+				blocks[i].valid = false;
+			}
+		}
+		
+		Arrays.fill(blockCode, false);
+	}
+	
+	private OpcodeHandler resolveHandler(int opcode) {
+		OpcodeHandler handler;
+		
+		switch ((opcode >> 12) & 0xf) {
+		case 0x0:
+			handler = systemHandlers[opcode & 0x00ff];
+			break;
+		case 0x8:
+			handler = arithmeticHandlers[opcode & 0x000f];
+			break;
+		case 0xe:
+			handler = keyHandlers[opcode & 0x00ff];
+			break;
+		case 0xf:
+			handler = miscHandlers[opcode & 0x00ff];
+			break;
+		default:
+			handler = opcodeHandlers[(opcode >> 12) & 0xf];
+			break;
+		}
+		
+		return handler != null ? handler : unknownHandler;
+	}
+	
+	private void loadOpcodeHandlers() {
+		unknownHandler = (in) -> {
+			// Reported once per ROM, since a ROM that runs into data would
+			// otherwise print on every instruction. The rest are only counted
+			if (unknownOpcodes++ == 0) {
+				System.err.println(String.format("Unknown opcode: %x at %03x", in.opcode, pc));
+			}
+		};
+		
+		// 0??? and 8xy?, Ex??, Fx?? are resolved through the tables below
+		opcodeHandlers = new OpcodeHandler[] {
+			null,
 			
 			// 1nnn
-			() -> {
+			(in) -> {
 				// JMP
-				pc = (short)(opcode & 0x0fff);
-				pc -= 2;
+				pc = in.nnn - 2;
 			},
 			
 			// 2nnn
-			() -> {
+			(in) -> {
 				// CALL addr
 				sp++;
-				stack[sp] = pc;
-				pc = (short)(opcode & 0x0fff);
-				pc -= 2;
+				stack[sp] = (short)pc;
+				pc = in.nnn - 2;
 			},
 			
 			// 3xkk
-			() -> {
+			(in) -> {
 				// SE Vx, byte
-				int reg = (opcode & 0x0f00) >> 8;
-				short value = (short)(opcode & 0x00ff);
-				
-				if (registers[reg] == value) {
+				if ((registers[in.x] & 0xff) == in.kk) {
 					pc += 2;
 				}
 			},
 			
 			// 4xkk
-			() -> {
+			(in) -> {
 				// SNE Vx, byte
-				int reg = (opcode & 0x0f00) >> 8;
-				short value = (short)(opcode & 0x00ff);
-				
-				if (registers[reg] != value) {
+				if ((registers[in.x] & 0xff) != in.kk) {
 					pc += 2;
 				}
 			},
 			
 			// 5xy0
-			() -> {
+			(in) -> {
 				// SE Vx, Vy
-				int regX = (opcode & 0x0f00) >> 8;
-				int regY = (opcode & 0x00f0) >> 4;
-				
-				if (registers[regX] == registers[regY]) {
+				if (registers[in.x] == registers[in.y]) {
 					pc += 2;
 				}
 			},
 			
 			// 6xkk
-			() -> {
+			(in) -> {
 				// LD Vx, byte
-				int reg = (opcode & 0x0f00) >> 8;
-				short val = (short)(opcode & 0x00ff);
-				registers[reg] = (short)(val % 256);
+				registers[in.x] = (byte)in.kk;
 			},
 			
 			// 7xkk
-			() -> {
+			(in) -> {
 				// ADD Vx, byte
-				int reg = (opcode & 0x0f00) >> 8;
-				short val = (short)(opcode & 0x00ff);
-				registers[reg] = (short)((registers[reg] + val) % 256);
+				registers[in.x] = (byte)(registers[in.x] + in.kk);
 			},
 			
-			// 8xy?
-			() -> {
-				int type = opcode & 0x000f;
-				int regX = (opcode & 0x0f00) >> 8;
-				int regY = (opcode & 0x00f0) >> 4;
-				
-				switch (type) {
-				case 0x0:
-					// LD Vx, Vy
-					registers[regX] = registers[regY];
-					break;
-				case 0x1:
-					// OR Vx, Vy
-					registers[regX] = (short)(registers[regX] | registers[regY]);
-					break;
-				case 0x2:
-					// AND Vx, Vy
-					registers[regX] = (short)(registers[regX] & registers[regY]);
-					break;
-				case 0x3:
-					// XOR Vx, Vy
-					registers[regX] = (short)(registers[regX] ^ registers[regY]);
-					break;
-				case 0x4:
-					// ADD Vx, Vy
-					int res = registers[regX] + registers[regY];
-					registers[15] = (short)(res > 255 ? 1 : 0);
-					
-					registers[regX] = (short)(res % 256);
-					break;
-				case 0x5:
-					// SUB Vx, Vy
-					registers[15] = (short)(registers[regX] > registers[regY] ? 1 : 0);
-					registers[regX] = (short)((registers[regX] - registers[regY]) % 256);
-					
-					if (registers[regX] < 0) {
-						registers[regX] = (short)(256 + registers[regX]);
-					}
-					break;
-				case 0x6:
-					// SHR Vx {, Vy }
-					int lsb = registers[regX] & 0b1;
-					registers[15] = (short)lsb;
-										
-					registers[regX] /= 2;
-					break;
-				case 0x7:
-					// SUBN Vx, Vy
-					registers[15] = (short)(registers[regY] > registers[regX] ? 1 : 0);
-					registers[regX] = (short)((registers[regY] - registers[regX]) % 256);
-					break;
-				case 0xe:
-					// SHL Vx {, Vy }
-					int msb = (registers[regX] >> 15);
-					registers[15] = (short)msb;
-					
-					registers[regX] = (short)((registers[regX] * 2) % 256);
-					break;
-				default:
-					System.err.println(String.format("Unknown opcode: %x", opcode));
-					break;
-				}
-			},
+			null,
 			
 			// 9xy0
-			() -> {
+			(in) -> {
 				// SNE Vx, Vy
-				int regX = (opcode & 0x0f00) >> 8;
-				int regY = (opcode & 0x00f0) >> 4;
-				
-				if (registers[regX] != registers[regY]) {
+				if (registers[in.x] != registers[in.y]) {
 					pc += 2;
 				}
 			},
 			
 			// Annn
-			() -> {
+			(in) -> {
 				// LD I, addr
-				iRegister = (short)(opcode & 0x0fff);
+				iRegister = in.nnn;
 			},
 			
 			// Bnnn
-			() -> {
+			(in) -> {
 				// JP V0, addr
-				short offset = (short)(opcode & 0x0fff);
-				pc = (short)(registers[0] + offset);
-				pc -= 2;
+				pc = (registers[0] & 0xff) + in.nnn - 2;
 			},
 			
 			// Cxkk
-			() -> {
+			(in) -> {
 				// RND Vx, byte
-				int reg = (opcode & 0x0f00) >> 8;
-				short val = (short)(opcode & 0x00ff);
-				short rand = (short)random.nextInt(256);
-				
-				registers[reg] = (short)(rand & val);
+				registers[in.x] = (byte)(random.nextByte() & in.kk);
 			},
 			
 			// Dxyn
-			() -> {
+			(in) -> {
 				// DRW Vx, Vy, nibble
-				int size = opcode & 0x000f;
-				int regX = (opcode & 0x0f00) >> 8;
-				int regY = (opcode & 0x00f0) >> 4;
-				int xPos = registers[regX];
-				int yPos = registers[regY];
+				int xPos = registers[in.x] & 0xff;
+				int yPos = registers[in.y] & 0xff;
 				boolean collision = false;
 				
-				for (int i = 0; i < size; i++) {
-					short data = memory[iRegister + i];
-					collision = display.drawByte(xPos, yPos + i, data) || collision;
+				for (int i = 0; i < in.n; i++) {
+					collision = screen.drawByte(xPos, yPos + i, readMemory(iRegister + i)) || collision;
 				}
 				
-				registers[15] = (short)(collision ? 1 : 0);
+				registers[15] = (byte)(collision ? 1 : 0);
 			},
 			
+			null,
+			null
+		};
+		
+		// 00??
+		systemHandlers = new OpcodeHandler[256];
+		
+		systemHandlers[0xe0] = (in) -> {
+			// CLS
+			screen.clear();
+		};
+		
+		systemHandlers[0xee] = (in) -> {
+			// RET
+			pc = stack[sp];
+			sp--;
+		};
+		
+		// 8xy?
+		arithmeticHandlers = new OpcodeHandler[16];
+		
+		arithmeticHandlers[0x0] = (in) -> {
+			// LD Vx, Vy
+			registers[in.x] = registers[in.y];
+		};
+		
+		arithmeticHandlers[0x1] = (in) -> {
+			// OR Vx, Vy
+			registers[in.x] |= registers[in.y];
+		};
+		
+		arithmeticHandlers[0x2] = (in) -> {
+			// AND Vx, Vy
+			registers[in.x] &= registers[in.y];
+		};
+		
+		arithmeticHandlers[0x3] = (in) -> {
+			// XOR Vx, Vy
+			registers[in.x] ^= registers[in.y];
+		};
+		
+		arithmeticHandlers[0x4] = (in) -> {
+			// ADD Vx, Vy
+			int res = (registers[in.x] & 0xff) + (registers[in.y] & 0xff);
+			registers[in.x] = (byte)res;
+			registers[15] = (byte)(res >> 8);
+		};
+		
+		arithmeticHandlers[0x5] = (in) -> {
+			// SUB Vx, Vy
+			int vx = registers[in.x] & 0xff;
+			int vy = registers[in.y] & 0xff;
+			registers[in.x] = (byte)(vx - vy);
+			registers[15] = (byte)(vx > vy ? 1 : 0);
+		};
+		
+		arithmeticHandlers[0x6] = (in) -> {
+			// SHR Vx {, Vy }
+			int vx = registers[in.x] & 0xff;
+			registers[in.x] = (byte)(vx >> 1);
+			registers[15] = (byte)(vx & 0b1);
+		};
+		
+		arithmeticHandlers[0x7] = (in) -> {
+			// SUBN Vx, Vy
+			int vx = registers[in.x] & 0xff;
+			int vy = registers[in.y] & 0xff;
+			registers[in.x] = (byte)(vy - vx);
+			registers[15] = (byte)(vy > vx ? 1 : 0);
+		};
+		
+		arithmeticHandlers[0xe] = (in) -> {
+			// SHL Vx {, Vy }
+			int vx = registers[in.x] & 0xff;
+			registers[in.x] = (byte)(vx << 1);
+			registers[15] = (byte)(vx >> 7);
+		};
+		
+		// Ex??
+		keyHandlers = new OpcodeHandler[256];
+		
+		keyHandlers[0x9e] = (in) -> {
+			// SKP Vx
+			int key = registers[in.x] & 0xff;
 			
-			// Ex??
-			() -> {
-				int reg = (opcode & 0x0f00) >> 8;
-				int instr = opcode & 0x00ff;
-				int key = registers[reg];
-				
-				if (key > 15) {
-					return;
-				}
-				
-				if (instr == 0x9e) {
-					// SKP Vx
-					if (keys[key]) {
-						pc += 2;
-					}
-				} else if (instr == 0xa1) {
-					// SKNP Vx
-					if (!keys[key]) {
-						pc += 2;
-					}
-				} else {
-					System.err.println(String.format("Unknown opcode: %x", opcode));
-				}
-			},
+			if (key <= 15 && keys[key]) {
+				pc += 2;
+			}
+		};
+		
+		keyHandlers[0xa1] = (in) -> {
+			// SKNP Vx
+			int key = registers[in.x] & 0xff;
 			
-			// Fx??
-			() -> {
-				int reg = (opcode & 0x0f00) >> 8;
-				int type = opcode & 0x00ff;
-				
-				switch (type) {
-				case 0x07:
-					// LD Vx, DT
-					registers[reg] = (short)delayTimer;
-					break;
-				case 0x0a:
-					// LD Vx, k
-					awaitingKey = true;
-					keyRegister = reg;
-					break;
-				case 0x15:
-					// LD DT, Vx
-					delayTimer = registers[reg];
-					break;
-				case 0x18:
-					// LD ST, Vx
-					soundTimer = registers[reg];
-					break;
-				case 0x1e:
-					// ADD I, Vx
-					iRegister += registers[reg];
-					break;
-				case 0x29:
-					// LD F, Vx
-					iRegister = digitLocations[registers[reg]];
-					break;
-				case 0x33:
-					// LD B, Vx
-					memory[iRegister] = (short)(registers[reg] / 100);
-					memory[iRegister + 1] = (short)((registers[reg] / 10) % 10);
-					memory[iRegister + 2] = (short)((registers[reg] % 100) % 10);
-					break;
-				case 0x55:
-					// LD [I], Vx
-					for (int i = 0; i <= reg; i++) {
-						memory[iRegister + i] = registers[i];
-					}
-					
-					break;
-				case 0x65:
-					// LD Vx, [I]
-					for (int i = 0; i <= reg; i++) {
-						registers[i] = memory[iRegister + i];
-					}
-					
-					break;
-				default:
-					System.err.println(String.format("Unknown opcode: %x", opcode));
-					break;
-				}
+			if (key <= 15 && !keys[key]) {
+				pc += 2;
+			}
+		};
+		
+		// Fx??
+		miscHandlers = new OpcodeHandler[256];
+		
+		miscHandlers[0x07] = (in) -> {
+			// LD Vx, DT
+			registers[in.x] = (byte)delayTimer;
+		};
+		
+		miscHandlers[0x0a] = (in) -> {
+			// LD Vx, k
+			awaitingKey = true;
+			keyRegister = in.x;
+		};
+		
+		miscHandlers[0x15] = (in) -> {
+			// LD DT, Vx
+			delayTimer = registers[in.x] & 0xff;
+		};
+		
+		miscHandlers[0x18] = (in) -> {
+			// LD ST, Vx
+			boolean wasPlaying = soundTimer > 0;
+			soundTimer = registers[in.x] & 0xff;
+			
+			if (wasPlaying != soundTimer > 0) {
+				speaker.setPlaying(soundTimer > 0);
+			}
+		};
+		
+		miscHandlers[0x1e] = (in) -> {
+			// ADD I, Vx
+			iRegister = (iRegister + (registers[in.x] & 0xff)) & 0xfff;
+		};
+		
+		miscHandlers[0x29] = (in) -> {
+			// LD F, Vx
+			iRegister = FONT_ADDRESS + (registers[in.x] & 0xf) * FONT_HEIGHT;
+		};
+		
+		miscHandlers[0x33] = (in) -> {
+			// LD B, Vx
+			int vx = registers[in.x] & 0xff;
+			writeMemory(iRegister, vx / 100);
+			writeMemory(iRegister + 1, (vx / 10) % 10);
+			writeMemory(iRegister + 2, vx % 10);
+		};
+		
+		miscHandlers[0x55] = (in) -> {
+			// LD [I], Vx
+			for (int i = 0; i <= in.x; i++) {
+				writeMemory(iRegister + i, registers[i]);
+			}
+		};
+		
+		miscHandlers[0x65] = (in) -> {
+			// LD Vx, [I]
+			for (int i = 0; i <= in.x; i++) {
+				registers[i] = memory[(iRegister + i) & 0xfff];
 			}
 		};
 	}
@@ -0,0 +1,49 @@
+package chip8emu.emulator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class CPUPool {
+	public static final int DEFAULT_CAPACITY = 64;
+	
+	private int capacity;
+	private Deque<CPU> idle;
+	
+	public CPUPool() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public CPUPool(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Pool capacity must not be negative");
+		}
+		
+		this.capacity = capacity;
+		idle = new ArrayDeque<CPU>(capacity);
+	}
+	
+	public synchronized CPU acquire() {
+		CPU cpu = idle.pollFirst();
+		return cpu != null ? cpu : new CPU();
+	}
+	
+	public void release(CPU cpu) {
+		// Reinitialized outside the pool lock, the CPU holds its own. The
+		// next caller gets a CPU with none of this caller's configuration
+		cpu.reinitialize();
+		
+		synchronized (this) {
+			if (idle.size() < capacity) {
+				idle.offerFirst(cpu);
+			}
+		}
+	}
+	
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+}
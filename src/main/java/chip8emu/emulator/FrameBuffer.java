@@ -0,0 +1,78 @@
+package chip8emu.emulator;
+
+public class FrameBuffer implements Screen {
+	public static final int WIDTH = 64;
+	public static final int HEIGHT = 32;
+	
+	// One row per long, with the leftmost pixel in the most significant bit
+	private long rows[];
+	private long generation;
+	
+	public FrameBuffer() {
+		rows = new long[HEIGHT];
+	}
+	
+	@Override
+	public void clear() {
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = 0;
+		}
+		
+		generation++;
+	}
+	
+	@Override
+	public boolean drawByte(int x, int y, int data) {
+		// Rotating rather than shifting wraps the sprite around the right edge
+		long sprite = Long.rotateRight((data & 0xffL) << (WIDTH - 8), x & (WIDTH - 1));
+		
+		if (sprite == 0) {
+			return false;
+		}
+		
+		int row = y & (HEIGHT - 1);
+		boolean collision = (rows[row] & sprite) != 0;
+		
+		rows[row] ^= sprite;
+		generation++;
+		return collision;
+	}
+	
+	@Override
+	public boolean isPixelSet(int x, int y) {
+		return (rows[y] << x) < 0;
+	}
+	
+	@Override
+	public long getRow(int y) {
+		return rows[y];
+	}
+	
+	@Override
+	public void setRow(int y, long row) {
+		if (rows[y] != row) {
+			rows[y] = row;
+			generation++;
+		}
+	}
+	
+	public long getGeneration() {
+		return generation;
+	}
+	
+	public void copyTo(FrameBuffer other) {
+		System.arraycopy(rows, 0, other.rows, 0, rows.length);
+		other.generation = generation;
+	}
+	
+	public static long checksum(Screen screen) {
+		// FNV-1a over the rows, cheap enough to run after every frame
+		long hash = 0xcbf29ce484222325L;
+		
+		for (int y = 0; y < HEIGHT; y++) {
+			hash = (hash ^ screen.getRow(y)) * 0x100000001b3L;
+		}
+		
+		return hash;
+	}
+}
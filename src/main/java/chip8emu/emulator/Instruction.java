@@ -0,0 +1,24 @@
+package chip8emu.emulator;
+
+public class Instruction {
+	int opcode;
+	int x, y, n, kk, nnn;
+	boolean valid;
+	OpcodeHandler handler;
+	
+	void decode(int opcode, OpcodeHandler handler) {
+		this.opcode = opcode;
+		this.handler = handler;
+		
+		x = (opcode & 0x0f00) >> 8;
+		y = (opcode & 0x00f0) >> 4;
+		n = opcode & 0x000f;
+		kk = opcode & 0x00ff;
+		nnn = opcode & 0x0fff;
+		valid = true;
+	}
+	
+	public int getOpcode() {
+		return opcode;
+	}
+}
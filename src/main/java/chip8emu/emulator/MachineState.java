@@ -0,0 +1,125 @@
+package chip8emu.emulator;
+
+public final class MachineState {
+	private final int pc, sp, iRegister, opcode;
+	private final int delayTimer, soundTimer, keyMask;
+	private final long frame, instructionCount;
+	private final boolean running, awaitingKey;
+	private final String romName, breakReason;
+	private final byte registers[], memory[];
+	private final short stack[];
+	private final long addressHits[], familyCounts[];
+	
+	MachineState(int pc, int sp, int iRegister, int opcode, int delayTimer, int soundTimer, int keyMask,
+			long frame, long instructionCount, boolean running, boolean awaitingKey, String romName,
+			String breakReason, byte registers[], short stack[], byte memory[],
+			long addressHits[], long familyCounts[]) {
+		this.pc = pc;
+		this.sp = sp;
+		this.iRegister = iRegister;
+		this.opcode = opcode;
+		this.delayTimer = delayTimer;
+		this.soundTimer = soundTimer;
+		this.keyMask = keyMask;
+		this.frame = frame;
+		this.instructionCount = instructionCount;
+		this.running = running;
+		this.awaitingKey = awaitingKey;
+		this.romName = romName;
+		this.breakReason = breakReason;
+		this.registers = registers.clone();
+		this.stack = stack.clone();
+		this.memory = memory.clone();
+		this.addressHits = addressHits != null ? addressHits.clone() : null;
+		this.familyCounts = familyCounts != null ? familyCounts.clone() : null;
+	}
+	
+	public int getPC() {
+		return pc;
+	}
+	
+	public int getSP() {
+		return sp;
+	}
+	
+	public int getI() {
+		return iRegister;
+	}
+	
+	public int getOpcode() {
+		return opcode;
+	}
+	
+	public int getDelayTimer() {
+		return delayTimer;
+	}
+	
+	public int getSoundTimer() {
+		return soundTimer;
+	}
+	
+	public boolean isKeyPressed(int key) {
+		return ((keyMask >> key) & 1) != 0;
+	}
+	
+	public long getFrame() {
+		return frame;
+	}
+	
+	public long getInstructionCount() {
+		return instructionCount;
+	}
+	
+	public boolean isRunning() {
+		return running;
+	}
+	
+	public boolean isAwaitingKey() {
+		return awaitingKey;
+	}
+	
+	public String getROMName() {
+		return romName;
+	}
+	
+	public String getBreakReason() {
+		return breakReason;
+	}
+	
+	public int getRegister(int index) {
+		return registers[index] & 0xff;
+	}
+	
+	public int getRegisterCount() {
+		return registers.length;
+	}
+	
+	public int getStackEntry(int index) {
+		return stack[index] & 0xffff;
+	}
+	
+	public int getStackDepth() {
+		return stack.length;
+	}
+	
+	public int readMemory(int address) {
+		return memory[address] & 0xff;
+	}
+	
+	public int getMemorySize() {
+		return memory.length;
+	}
+	
+	public boolean isProfiling() {
+		return addressHits != null;
+	}
+	
+	// Profile counts are 0 when the CPU is not being profiled
+	public long getAddressHits(int address) {
+		return addressHits != null ? addressHits[address] : 0;
+	}
+	
+	public long getFamilyCount(int family) {
+		return familyCounts != null ? familyCounts[family] : 0;
+	}
+}
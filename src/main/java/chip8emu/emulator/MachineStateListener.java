@@ -0,0 +1,5 @@
+package chip8emu.emulator;
+
+public interface MachineStateListener {
+	public void stateChanged(MachineState state);
+}
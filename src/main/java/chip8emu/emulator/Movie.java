@@ -0,0 +1,100 @@
+package chip8emu.emulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class Movie {
+	public static final int MAGIC = 0x43384d56;
+	public static final short VERSION = 1;
+	
+	// Magic, version, ROM hash, seed, instructions per frame and frame count
+	static final int HEADER_SIZE = 4 + 2 + 40 + 8 + 4 + 4;
+	
+	private String romHash;
+	private long seed;
+	private int instructionsPerFrame;
+	private short masks[];
+	
+	public Movie(String romHash, long seed, int instructionsPerFrame, short masks[]) {
+		this.romHash = romHash;
+		this.seed = seed;
+		this.instructionsPerFrame = instructionsPerFrame;
+		this.masks = masks;
+	}
+	
+	public static Movie load(String filePath) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filePath)));
+		
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+			throw new IOException("Not a movie file");
+		}
+		
+		short version = buffer.getShort();
+		
+		if (version != VERSION) {
+			throw new IOException("Unsupported movie version " + version);
+		}
+		
+		byte hash[] = new byte[40];
+		buffer.get(hash);
+		long seed = buffer.getLong();
+		int instructionsPerFrame = buffer.getInt();
+		int frameCount = buffer.getInt();
+		
+		if (instructionsPerFrame <= 0 || frameCount < 0 || buffer.remaining() < frameCount * 2L) {
+			throw new IOException("Movie file is truncated or corrupt");
+		}
+		
+		short masks[] = new short[frameCount];
+		buffer.asShortBuffer().get(masks);
+		return new Movie(new String(hash, StandardCharsets.US_ASCII), seed, instructionsPerFrame, masks);
+	}
+	
+	public void save(String filePath) throws IOException {
+		save(Paths.get(filePath), masks.length);
+	}
+	
+	void save(Path path, int frameCount) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + frameCount * 2);
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.put(romHash.getBytes(StandardCharsets.US_ASCII), 0, 40);
+		buffer.putLong(seed);
+		buffer.putInt(instructionsPerFrame);
+		buffer.putInt(frameCount);
+		buffer.asShortBuffer().put(masks, 0, frameCount);
+		buffer.clear();
+		
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+	
+	public String getROMHash() {
+		return romHash;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	public int getInstructionsPerFrame() {
+		return instructionsPerFrame;
+	}
+	
+	public int getFrameCount() {
+		return masks.length;
+	}
+	
+	public int getKeyMask(int frame) {
+		return masks[frame] & 0xffff;
+	}
+}
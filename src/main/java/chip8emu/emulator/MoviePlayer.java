@@ -0,0 +1,57 @@
+package chip8emu.emulator;
+
+public class MoviePlayer {
+	private CPU cpu;
+	private Movie movie;
+	private int frame;
+	
+	public MoviePlayer(CPU cpu, Movie movie) {
+		this.cpu = cpu;
+		this.movie = movie;
+	}
+	
+	public void start() {
+		ROM rom = cpu.getActiveROM();
+		
+		if (rom == null || !rom.getHash().equals(movie.getROMHash())) {
+			throw new IllegalStateException("Movie was recorded with a different ROM");
+		}
+		
+		cpu.setDeterministic(true);
+		cpu.setSeed(movie.getSeed());
+		cpu.loadROM(rom);
+		frame = 0;
+	}
+	
+	public boolean step() {
+		if (frame >= movie.getFrameCount()) {
+			return false;
+		}
+		
+		long cpuFrame = cpu.getFrame();
+		cpu.runFrame(movie.getInstructionsPerFrame(), movie.getKeyMask(frame));
+		
+		// Playback stops at a break, and the next step finishes the frame
+		if (cpu.getFrame() == cpuFrame) {
+			return false;
+		}
+		
+		frame++;
+		return true;
+	}
+	
+	public void playToEnd() {
+		start();
+		
+		while (step()) {
+		}
+	}
+	
+	public int getFrame() {
+		return frame;
+	}
+	
+	public Movie getMovie() {
+		return movie;
+	}
+}
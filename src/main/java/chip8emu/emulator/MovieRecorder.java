@@ -0,0 +1,72 @@
+package chip8emu.emulator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class MovieRecorder {
+	private Path path;
+	private String romHash;
+	private long seed;
+	private int instructionsPerFrame;
+	private short masks[];
+	private int frameCount;
+	private boolean stopped;
+	
+	public MovieRecorder(String filePath) {
+		path = Paths.get(filePath);
+		masks = new short[TimerClock.FREQUENCY * 60];
+	}
+	
+	public synchronized void frameRan(CPU cpu, int instructions, int keyMask) {
+		if (stopped) {
+			return;
+		}
+		
+		int frame = (int)(cpu.getFrame() - 1);
+		
+		if (romHash == null) {
+			if (frame != 0) {
+				// A movie has to start from boot to be replayable
+				return;
+			}
+			
+			romHash = cpu.getActiveROM().getHash();
+			seed = cpu.getSeed();
+			instructionsPerFrame = instructions;
+		} else if (!romHash.equals(cpu.getActiveROM().getHash()) || instructions != instructionsPerFrame || frame > frameCount) {
+			stop("the ROM, the clock speed or the frame count changed");
+			return;
+		}
+		
+		if (frame == masks.length) {
+			masks = Arrays.copyOf(masks, masks.length * 2);
+		}
+		
+		// Rewinding or loading a state drops the frames recorded after it
+		masks[frame] = (short)keyMask;
+		frameCount = frame + 1;
+	}
+	
+	public synchronized void close() throws IOException {
+		stopped = true;
+		
+		if (romHash != null) {
+			new Movie(romHash, seed, instructionsPerFrame, masks).save(path, frameCount);
+		}
+	}
+	
+	public String getFilePath() {
+		return path.toString();
+	}
+	
+	public synchronized int getFrameCount() {
+		return frameCount;
+	}
+	
+	private void stop(String reason) {
+		stopped = true;
+		System.err.println("Recording stopped at frame " + frameCount + ": " + reason);
+	}
+}
@@ -0,0 +1,19 @@
+package chip8emu.emulator;
+
+public class NullSpeaker implements Speaker {
+	private boolean playing;
+	
+	@Override
+	public void setPlaying(boolean playing) {
+		this.playing = playing;
+	}
+	
+	@Override
+	public void close() {
+		playing = false;
+	}
+	
+	public boolean isPlaying() {
+		return playing;
+	}
+}
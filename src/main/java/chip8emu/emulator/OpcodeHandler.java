@@ -1,5 +1,5 @@
 package chip8emu.emulator;
 
 public interface OpcodeHandler {
-	public void run();
+	public void run(Instruction instruction);
 }
@@ -0,0 +1,70 @@
+package chip8emu.emulator;
+
+import java.util.Arrays;
+
+public class Profiler {
+	// One family per handler in CPU's dispatch tables, plus one for opcodes
+	// that fall through to the unknown handler
+	public static final String FAMILIES[] = {
+		"00E0 CLS", "00EE RET", "1nnn JP", "2nnn CALL", "3xkk SE", "4xkk SNE", "5xy0 SE", "6xkk LD", "7xkk ADD",
+		"8xy0 LD", "8xy1 OR", "8xy2 AND", "8xy3 XOR", "8xy4 ADD", "8xy5 SUB", "8xy6 SHR", "8xy7 SUBN", "8xyE SHL",
+		"9xy0 SNE", "Annn LD I", "Bnnn JP V0", "Cxkk RND", "Dxyn DRW", "Ex9E SKP", "ExA1 SKNP",
+		"Fx07 LD Vx, DT", "Fx0A LD Vx, K", "Fx15 LD DT, Vx", "Fx18 LD ST, Vx", "Fx1E ADD I", "Fx29 LD F",
+		"Fx33 LD B", "Fx55 LD [I], Vx", "Fx65 LD Vx, [I]", "Unknown"
+	};
+	public static final int UNKNOWN = FAMILIES.length - 1;
+	
+	private static final int MISC_OPCODES[] = { 0x07, 0x0a, 0x15, 0x18, 0x1e, 0x29, 0x33, 0x55, 0x65 };
+	
+	private long addressHits[];
+	private long familyCounts[];
+	
+	public Profiler() {
+		addressHits = new long[4096];
+		familyCounts = new long[FAMILIES.length];
+	}
+	
+	public static int family(int opcode) {
+		int type = opcode & 0x00ff;
+		
+		switch ((opcode >> 12) & 0xf) {
+		case 0x0:
+			return type == 0xe0 ? 0 : type == 0xee ? 1 : UNKNOWN;
+		case 0x8:
+			int operation = opcode & 0x000f;
+			return operation <= 0x7 ? 9 + operation : operation == 0xe ? 17 : UNKNOWN;
+		case 0xe:
+			return type == 0x9e ? 23 : type == 0xa1 ? 24 : UNKNOWN;
+		case 0xf:
+			for (int i = 0; i < MISC_OPCODES.length; i++) {
+				if (MISC_OPCODES[i] == type) {
+					return 25 + i;
+				}
+			}
+			
+			return UNKNOWN;
+		default:
+			int nibble = (opcode >> 12) & 0xf;
+			return nibble < 0x8 ? nibble + 1 : nibble + 9;
+		}
+	}
+	
+	// Only called by CPU, with its lock held
+	void record(int address, int opcode) {
+		addressHits[address]++;
+		familyCounts[family(opcode)]++;
+	}
+	
+	void clear() {
+		Arrays.fill(addressHits, 0);
+		Arrays.fill(familyCounts, 0);
+	}
+	
+	long[] getAddressHits() {
+		return addressHits;
+	}
+	
+	long[] getFamilyCounts() {
+		return familyCounts;
+	}
+}
@@ -1,46 +1,68 @@
 package chip8emu.emulator;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-
-import javax.swing.JOptionPane;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class ROM {
+	public static final int LOAD_ADDRESS = 0x200;
+	public static final int MAX_SIZE = 0x1000 - LOAD_ADDRESS;
+	
 	private String filePath;
 	private String fileName;
-	private InputStream input;
+	private byte data[];
+	private volatile String hash;
 	
-	public ROM(String filePath) {
-		this.filePath = filePath;
+	public ROM(String filePath) throws IOException {
+		Path path = Paths.get(filePath);
 		
-		fileName = Paths.get(filePath).getFileName().toString();
+		// Check the size first so a huge file is rejected before it is read,
+		// and again after, in case the file grew in between
+		checkSize(Files.size(path));
 		
-		try {
-			input = new FileInputStream(filePath);
-		} catch (IOException e) {
-			JOptionPane.showMessageDialog(null, "File '" + filePath + "' does not exist", "Error", JOptionPane.OK_OPTION);
-		}
+		this.filePath = filePath;
+		fileName = path.getFileName().toString();
+		data = Files.readAllBytes(path);
+		checkSize(data.length);
 	}
 	
-	public short nextByte() {
-		try {
-			return (short)input.read();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	public ROM(String fileName, byte data[]) throws IOException {
+		checkSize(data.length);
 		
-		return -1;
+		this.fileName = fileName;
+		this.data = data.clone();
 	}
 	
-	public void close() {
-		try {
-			input.close();
-		} catch (IOException e) {
-			e.printStackTrace();
+	// Used by ROMRepository to share one image between ROMs without copying it
+	ROM(String filePath, String fileName, byte data[], String hash) {
+		this.filePath = filePath;
+		this.fileName = fileName;
+		this.data = data;
+		this.hash = hash;
+	}
+	
+	public void copyTo(byte memory[], int offset) {
+		System.arraycopy(data, 0, memory, offset, data.length);
+	}
+	
+	public ByteBuffer getData() {
+		return ByteBuffer.wrap(data).asReadOnlyBuffer();
+	}
+	
+	public int getSize() {
+		return data.length;
+	}
+	
+	public String getHash() {
+		if (hash == null) {
+			hash = hash(data);
 		}
+		
+		return hash;
 	}
 	
 	public String getFilePath() {
@@ -50,4 +72,26 @@ public class ROM {
 	public String getFileName() {
 		return fileName;
 	}
+	
+	private static void checkSize(long size) throws IOException {
+		if (size > MAX_SIZE) {
+			throw new IOException("ROM is larger than " + MAX_SIZE + " bytes");
+		}
+	}
+	
+	static String hash(byte data[]) {
+		try {
+			byte digest[] = MessageDigest.getInstance("SHA-1").digest(data);
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			
+			for (byte b : digest) {
+				hex.append(String.format("%02x", b & 0xff));
+			}
+			
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM is required to provide SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
 }
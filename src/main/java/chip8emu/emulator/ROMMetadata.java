@@ -0,0 +1,19 @@
+package chip8emu.emulator;
+
+public class ROMMetadata {
+	private String title;
+	private int clockSpeed;
+	
+	public ROMMetadata(String title, int clockSpeed) {
+		this.title = title;
+		this.clockSpeed = clockSpeed;
+	}
+	
+	public String getTitle() {
+		return title;
+	}
+	
+	public int getClockSpeed() {
+		return clockSpeed;
+	}
+}
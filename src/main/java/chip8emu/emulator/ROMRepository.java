@@ -0,0 +1,164 @@
+package chip8emu.emulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class ROMRepository {
+	public static final long DEFAULT_CAPACITY = 16L * 1024 * 1024;
+	
+	private long capacity, size;
+	private Map<String, byte[]> images;
+	private Map<Path, CachedPath> paths;
+	private Map<String, ROMMetadata> metadata;
+	
+	public ROMRepository() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public ROMRepository(long capacity) {
+		if (capacity < ROM.MAX_SIZE) {
+			throw new IllegalArgumentException("Capacity must fit at least one ROM");
+		}
+		
+		this.capacity = capacity;
+		images = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+		paths = new HashMap<Path, CachedPath>();
+		metadata = new HashMap<String, ROMMetadata>();
+	}
+	
+	public ROM load(String filePath) throws IOException {
+		Path path = Paths.get(filePath).toAbsolutePath().normalize();
+		String fileName = path.getFileName().toString();
+		long modified = Files.getLastModifiedTime(path).toMillis();
+		
+		synchronized (this) {
+			CachedPath cached = paths.get(path);
+			
+			// A path is only trusted while the file is unchanged on disk
+			if (cached != null && cached.modified == modified) {
+				byte data[] = images.get(cached.hash);
+				
+				if (data != null) {
+					return new ROM(filePath, fileName, data, cached.hash);
+				}
+			}
+		}
+		
+		// Reading and hashing run outside the lock, so threads loading
+		// different ROMs do not wait on each other. If two threads load the
+		// same image, the first one to publish it wins
+		ROM rom = new ROM(filePath);
+		String hash = rom.getHash();
+		byte data[] = new byte[rom.getSize()];
+		rom.copyTo(data, 0);
+		
+		synchronized (this) {
+			data = putIfAbsent(hash, data);
+			paths.put(path, new CachedPath(hash, modified));
+		}
+		
+		return new ROM(filePath, fileName, data, hash);
+	}
+	
+	public synchronized void setMetadata(String hash, ROMMetadata romMetadata) {
+		metadata.put(hash, romMetadata);
+	}
+	
+	public synchronized ROMMetadata getMetadata(String hash) {
+		return metadata.get(hash);
+	}
+	
+	public synchronized void loadMetadata(InputStream input) throws IOException {
+		// Entries look like <sha1>.title=Pong and <sha1>.clock=500. Hashes
+		// match whatever their case, and a later file replaces what an
+		// earlier one said about the same ROM
+		Properties properties = new Properties();
+		properties.load(input);
+		
+		for (String key : properties.stringPropertyNames()) {
+			if (!key.endsWith(".title") && !key.endsWith(".clock")) {
+				continue;
+			}
+			
+			String prefix = key.substring(0, key.lastIndexOf('.'));
+			String clock = properties.getProperty(prefix + ".clock");
+			
+			try {
+				int clockSpeed = clock != null ? Integer.parseInt(clock.trim()) : Scheduler.DEFAULT_CLOCK_SPEED;
+				metadata.put(prefix.toLowerCase(), new ROMMetadata(properties.getProperty(prefix + ".title"), clockSpeed));
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid clock speed for ROM " + prefix + ": " + clock);
+			}
+		}
+	}
+	
+	public synchronized void clear() {
+		images.clear();
+		paths.clear();
+		size = 0;
+	}
+	
+	public synchronized int getCachedCount() {
+		return images.size();
+	}
+	
+	synchronized int getPathCount() {
+		return paths.size();
+	}
+	
+	public synchronized long getSize() {
+		return size;
+	}
+	
+	public long getCapacity() {
+		return capacity;
+	}
+	
+	private byte[] putIfAbsent(String hash, byte data[]) {
+		byte existing[] = images.get(hash);
+		
+		if (existing != null) {
+			return existing;
+		}
+		
+		images.put(hash, data);
+		size += data.length;
+		
+		// Iteration order is least recently used first. Paths pointing at an
+		// evicted image go with it, so both maps stay bounded
+		Iterator<Map.Entry<String, byte[]>> iterator = images.entrySet().iterator();
+		
+		while (size > capacity && iterator.hasNext()) {
+			Map.Entry<String, byte[]> entry = iterator.next();
+			String evicted = entry.getKey();
+			
+			if (evicted.equals(hash)) {
+				continue;
+			}
+			
+			size -= entry.getValue().length;
+			iterator.remove();
+			paths.values().removeIf((cached) -> cached.hash.equals(evicted));
+		}
+		
+		return data;
+	}
+	
+	private static class CachedPath {
+		private String hash;
+		private long modified;
+		
+		private CachedPath(String hash, long modified) {
+			this.hash = hash;
+			this.modified = modified;
+		}
+	}
+}
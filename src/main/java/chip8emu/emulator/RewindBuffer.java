@@ -0,0 +1,239 @@
+package chip8emu.emulator;
+
+public class RewindBuffer {
+	public static final int DEFAULT_LENGTH = 3000;
+	public static final int DEFAULT_FRAME_INTERVAL = 6;
+	public static final int KEYFRAME_INTERVAL = 30;
+	
+	// Deltas that would be more than half a keyframe are stored as keyframes
+	private static final int MAX_DELTA_SIZE = SaveState.SIZE / 2;
+	
+	private int frameInterval, frames;
+	private int head, count;
+	private byte entries[][];
+	private int lengths[], keyframes[], ages[];
+	private String romHash;
+	private SaveState scratch;
+	private byte state[], delta[];
+	private int cursor;
+	
+	public RewindBuffer() {
+		this(DEFAULT_LENGTH, DEFAULT_FRAME_INTERVAL);
+	}
+	
+	public RewindBuffer(int length, int frameInterval) {
+		if (length <= KEYFRAME_INTERVAL) {
+			throw new IllegalArgumentException("Rewind buffer must hold more than " + KEYFRAME_INTERVAL + " snapshots");
+		}
+		
+		if (frameInterval <= 0) {
+			throw new IllegalArgumentException("Frame interval must be positive");
+		}
+		
+		this.frameInterval = frameInterval;
+		entries = new byte[length][];
+		lengths = new int[length];
+		keyframes = new int[length];
+		ages = new int[length];
+		scratch = new SaveState();
+		state = new byte[SaveState.SIZE];
+		delta = new byte[MAX_DELTA_SIZE];
+	}
+	
+	public synchronized void framesElapsed(CPU cpu, int elapsed) {
+		frames += elapsed;
+		
+		if (frames >= frameInterval) {
+			frames = 0;
+			record(cpu);
+		}
+	}
+	
+	public synchronized void record(CPU cpu) {
+		cpu.saveState(scratch);
+		scratch.toBytes(state);
+		
+		if (!scratch.getROMHash().equals(romHash)) {
+			clear();
+			romHash = scratch.getROMHash();
+		}
+		
+		if (count == entries.length) {
+			evictOldest();
+		}
+		
+		int slot = head;
+		int length = -1;
+		
+		if (count > 0 && ages[newest()] + 1 < KEYFRAME_INTERVAL) {
+			int previous = newest();
+			length = encode(entries[keyframes[previous]]);
+			
+			if (length >= 0) {
+				store(slot, delta, length);
+				keyframes[slot] = keyframes[previous];
+				ages[slot] = ages[previous] + 1;
+			}
+		}
+		
+		if (length < 0) {
+			store(slot, state, SaveState.SIZE);
+			keyframes[slot] = slot;
+			ages[slot] = 0;
+		}
+		
+		head = (head + 1) % entries.length;
+		count++;
+	}
+	
+	public synchronized boolean stepBack(CPU cpu) {
+		if (count == 0) {
+			return false;
+		}
+		
+		int slot = newest();
+		System.arraycopy(entries[keyframes[slot]], 0, state, 0, SaveState.SIZE);
+		
+		if (keyframes[slot] != slot) {
+			decode(entries[slot], lengths[slot]);
+		}
+		
+		scratch.fromBytes(state);
+		
+		try {
+			cpu.loadState(scratch);
+		} catch (IllegalArgumentException e) {
+			// A different ROM was loaded since the history was recorded
+			clear();
+			return false;
+		}
+		
+		head = (head - 1 + entries.length) % entries.length;
+		count--;
+		frames = 0;
+		return true;
+	}
+	
+	public synchronized void clear() {
+		head = 0;
+		count = 0;
+		frames = 0;
+		romHash = null;
+	}
+	
+	public synchronized int getCount() {
+		return count;
+	}
+	
+	public synchronized long getSize() {
+		long size = 0;
+		
+		for (int i = 0; i < count; i++) {
+			size += lengths[(head - 1 - i + entries.length) % entries.length];
+		}
+		
+		return size;
+	}
+	
+	public int getFrameInterval() {
+		return frameInterval;
+	}
+	
+	private int newest() {
+		return (head - 1 + entries.length) % entries.length;
+	}
+	
+	private void evictOldest() {
+		// Deltas are useless without their keyframe, so they go with it
+		int tail = (head - count + entries.length) % entries.length;
+		
+		do {
+			tail = (tail + 1) % entries.length;
+			count--;
+		} while (count > 0 && keyframes[tail] != tail);
+	}
+	
+	private void store(int slot, byte data[], int length) {
+		// Slot arrays are kept and reused once the ring wraps around
+		if (entries[slot] == null || entries[slot].length < length) {
+			entries[slot] = new byte[length];
+		}
+		
+		System.arraycopy(data, 0, entries[slot], 0, length);
+		lengths[slot] = length;
+	}
+	
+	private int encode(byte keyframe[]) {
+		// XOR against the keyframe, stored as alternating runs of unchanged
+		// bytes and changed bytes
+		int i = 0;
+		cursor = 0;
+		
+		while (i < SaveState.SIZE) {
+			int start = i;
+			
+			while (i < SaveState.SIZE && state[i] == keyframe[i]) {
+				i++;
+			}
+			
+			int unchanged = i - start;
+			start = i;
+			
+			while (i < SaveState.SIZE && state[i] != keyframe[i]) {
+				i++;
+			}
+			
+			int changed = i - start;
+			
+			if (cursor + 6 + changed > MAX_DELTA_SIZE) {
+				return -1;
+			}
+			
+			writeLength(unchanged);
+			writeLength(changed);
+			
+			for (int j = start; j < i; j++) {
+				delta[cursor++] = (byte)(state[j] ^ keyframe[j]);
+			}
+		}
+		
+		return cursor;
+	}
+	
+	private void decode(byte data[], int length) {
+		int i = 0;
+		cursor = 0;
+		
+		while (cursor < length) {
+			i += readLength(data);
+			int changed = readLength(data);
+			
+			for (int j = 0; j < changed; j++) {
+				state[i++] ^= data[cursor++];
+			}
+		}
+	}
+	
+	private void writeLength(int value) {
+		while (value >= 0x80) {
+			delta[cursor++] = (byte)(value | 0x80);
+			value >>>= 7;
+		}
+		
+		delta[cursor++] = (byte)value;
+	}
+	
+	private int readLength(byte data[]) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		
+		do {
+			b = data[cursor++];
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+		
+		return value;
+	}
+}
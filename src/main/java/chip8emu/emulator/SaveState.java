@@ -0,0 +1,110 @@
+package chip8emu.emulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+public class SaveState {
+	public static final int MAGIC = 0x43385353;
+	public static final short VERSION = 2;
+	
+	private static final int HASH_LENGTH = 40;
+	static final int HEADER_SIZE = 4 + 2 + HASH_LENGTH;
+	
+	// Scalar registers, frame counter, keys, V registers, stack, RNG, memory
+	// and screen rows in the order CPU.saveState writes them
+	private static final int PAYLOAD_SIZE = 11 + 8 + 2 + 16 + 32 * 2 + 8 + 4096 + FrameBuffer.HEIGHT * 8;
+	
+	public static final int SIZE = HEADER_SIZE + PAYLOAD_SIZE;
+	
+	private ByteBuffer buffer;
+	private byte hashBytes[];
+	private String romHash;
+	
+	public SaveState() {
+		buffer = ByteBuffer.allocate(SIZE);
+		hashBytes = new byte[HASH_LENGTH];
+	}
+	
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		if (romHash == null) {
+			throw new IllegalStateException("Save state is empty");
+		}
+		
+		ByteBuffer output = buffer.duplicate();
+		output.clear();
+		
+		while (output.hasRemaining()) {
+			channel.write(output);
+		}
+	}
+	
+	public void readFrom(ReadableByteChannel channel) throws IOException {
+		romHash = null;
+		buffer.clear();
+		
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("Save state is truncated");
+			}
+		}
+		
+		buffer.flip();
+		
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("Not a save state");
+		}
+		
+		short version = buffer.getShort();
+		
+		if (version != VERSION) {
+			throw new IOException("Unsupported save state version " + version);
+		}
+		
+		buffer.get(hashBytes);
+		romHash = new String(hashBytes, StandardCharsets.US_ASCII);
+	}
+	
+	public String getROMHash() {
+		return romHash;
+	}
+	
+	public boolean isEmpty() {
+		return romHash == null;
+	}
+	
+	void toBytes(byte dest[]) {
+		System.arraycopy(buffer.array(), 0, dest, 0, SIZE);
+	}
+	
+	void fromBytes(byte src[]) {
+		// Only used for snapshots this class produced, so the header is trusted
+		System.arraycopy(src, 0, buffer.array(), 0, SIZE);
+		buffer.clear();
+		buffer.position(HEADER_SIZE - HASH_LENGTH);
+		buffer.get(hashBytes);
+		romHash = new String(hashBytes, StandardCharsets.US_ASCII);
+	}
+	
+	ByteBuffer begin(String romHash) {
+		this.romHash = romHash;
+		
+		buffer.clear();
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.put(romHash.getBytes(StandardCharsets.US_ASCII), 0, HASH_LENGTH);
+		return buffer;
+	}
+	
+	ByteBuffer open() {
+		if (romHash == null) {
+			throw new IllegalStateException("Save state is empty");
+		}
+		
+		buffer.position(HEADER_SIZE);
+		buffer.limit(SIZE);
+		return buffer;
+	}
+}
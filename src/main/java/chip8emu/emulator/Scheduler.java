@@ -0,0 +1,222 @@
+package chip8emu.emulator;
+
+import java.util.concurrent.locks.LockSupport;
+
+public class Scheduler implements Runnable {
+	public static final int UNTHROTTLED = 0;
+	public static final int DEFAULT_CLOCK_SPEED = 700;
+	public static final int DEFAULT_TURBO_MULTIPLIER = 4;
+	
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	private static final long IDLE_PARK = NANOS_PER_SECOND / 1000;
+	private static final long MAX_LAG = NANOS_PER_SECOND / 10;
+	private static final int UNTHROTTLED_BATCH = 1000;
+	private static final long STATE_INTERVAL = NANOS_PER_SECOND / 30;
+	
+	private volatile int clockSpeed;
+	private volatile boolean alive;
+	private volatile boolean turbo;
+	private volatile int turboMultiplier;
+	private Thread thread;
+	private TimerClock timerClock;
+	private volatile RewindBuffer rewindBuffer;
+	private volatile MovieRecorder movieRecorder;
+	private volatile MachineStateListener stateListener;
+	private long lastPublish;
+	private CPU cpu;
+	
+	public Scheduler(CPU cpu, int clockSpeed) {
+		this.cpu = cpu;
+		timerClock = new TimerClock(cpu);
+		turboMultiplier = DEFAULT_TURBO_MULTIPLIER;
+		setClockSpeed(clockSpeed);
+	}
+	
+	public void start() {
+		if (thread != null) {
+			return;
+		}
+		
+		alive = true;
+		thread = new Thread(this, "CHIP-8 CPU");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	public void stop() {
+		if (thread == null) {
+			return;
+		}
+		
+		alive = false;
+		LockSupport.unpark(thread);
+		
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		thread = null;
+	}
+	
+	public void setClockSpeed(int clockSpeed) {
+		if (clockSpeed < 0) {
+			throw new IllegalArgumentException("Clock speed must be positive, or 0 for unthrottled");
+		}
+		
+		this.clockSpeed = clockSpeed;
+	}
+	
+	public int getClockSpeed() {
+		return clockSpeed;
+	}
+	
+	public void setTurbo(boolean turbo) {
+		this.turbo = turbo;
+	}
+	
+	public boolean isTurbo() {
+		return turbo;
+	}
+	
+	public void setTurboMultiplier(int turboMultiplier) {
+		if (turboMultiplier < 1) {
+			throw new IllegalArgumentException("Turbo multiplier must be at least 1");
+		}
+		
+		this.turboMultiplier = turboMultiplier;
+	}
+	
+	public int getTurboMultiplier() {
+		return turboMultiplier;
+	}
+	
+	public void setRewindBuffer(RewindBuffer rewindBuffer) {
+		this.rewindBuffer = rewindBuffer;
+	}
+	
+	public RewindBuffer getRewindBuffer() {
+		return rewindBuffer;
+	}
+	
+	public void setStateListener(MachineStateListener stateListener) {
+		this.stateListener = stateListener;
+	}
+	
+	public void setMovieRecorder(MovieRecorder movieRecorder) {
+		this.movieRecorder = movieRecorder;
+	}
+	
+	@Override
+	public void run() {
+		long last = System.nanoTime();
+		
+		while (alive) {
+			long now = System.nanoTime();
+			publishState(now);
+			
+			if (!cpu.getRunning() || cpu.getActiveROM() == null) {
+				last = now;
+				timerClock.reset(now);
+				LockSupport.parkNanos(IDLE_PARK);
+				continue;
+			}
+			
+			int speed = clockSpeed;
+			int multiplier = turbo ? turboMultiplier : 1;
+			
+			// Turbo speeds up the timers along with the CPU, so games run
+			// faster as a whole rather than just computing faster
+			if (multiplier != timerClock.getMultiplier()) {
+				timerClock.setMultiplier(multiplier, now);
+			}
+			
+			if (cpu.getDeterministic()) {
+				runFrames(speed, now);
+				last = now;
+				continue;
+			}
+			
+			if (speed == UNTHROTTLED) {
+				cpu.run(UNTHROTTLED_BATCH);
+				framesElapsed(timerClock.update(System.nanoTime()));
+				last = now;
+				continue;
+			}
+			
+			// Instructions we are too far behind on are dropped rather than
+			// executed in one burst after a stall
+			if (now - last > MAX_LAG) {
+				last = now - MAX_LAG;
+			}
+			
+			long period = Math.max(NANOS_PER_SECOND / ((long)speed * multiplier), 1);
+			int due = (int)((now - last) / period);
+			
+			if (due > 0) {
+				cpu.run(due);
+				last += due * period;
+			}
+			
+			framesElapsed(timerClock.update(now));
+			
+			long wakeUp = Math.min(last + period, timerClock.getNextTick());
+			LockSupport.parkNanos(wakeUp - System.nanoTime());
+		}
+	}
+	
+	private void runFrames(int speed, long now) {
+		// Whole frames with a fixed instruction count, so a run only depends
+		// on its seed and input and never on host timing
+		int instructions = (speed == UNTHROTTLED ? DEFAULT_CLOCK_SPEED : speed) / TimerClock.FREQUENCY;
+		int frames = speed == UNTHROTTLED ? 1 : timerClock.advance(now);
+		
+		MovieRecorder recorder = movieRecorder;
+		instructions = Math.max(instructions, 1);
+		
+		int completed = 0;
+		
+		while (completed < frames) {
+			long frame = cpu.getFrame();
+			int keyMask = cpu.runFrame(instructions);
+			
+			// A break partway through leaves the frame to be finished, and
+			// recorded, once the CPU resumes
+			if (cpu.getFrame() == frame) {
+				break;
+			}
+			
+			if (recorder != null) {
+				recorder.frameRan(cpu, instructions, keyMask);
+			}
+			
+			completed++;
+		}
+		
+		framesElapsed(completed);
+		
+		if (speed != UNTHROTTLED) {
+			LockSupport.parkNanos(timerClock.getNextTick() - System.nanoTime());
+		}
+	}
+	
+	private void publishState(long now) {
+		// Snapshots are taken on this thread at a capped rate, however fast
+		// the CPU runs, so watching the machine never slows it down
+		MachineStateListener listener = stateListener;
+		
+		if (listener != null && now - lastPublish >= STATE_INTERVAL) {
+			lastPublish = now;
+			listener.stateChanged(cpu.snapshot());
+		}
+	}
+	
+	private void framesElapsed(int frames) {
+		RewindBuffer rewind = rewindBuffer;
+		
+		if (frames > 0 && rewind != null) {
+			rewind.framesElapsed(cpu, frames);
+		}
+	}
+}
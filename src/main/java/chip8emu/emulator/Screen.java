@@ -0,0 +1,9 @@
+package chip8emu.emulator;
+
+public interface Screen {
+	public void clear();
+	public boolean drawByte(int x, int y, int data);
+	public boolean isPixelSet(int x, int y);
+	public long getRow(int y);
+	public void setRow(int y, long row);
+}
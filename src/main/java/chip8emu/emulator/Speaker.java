@@ -0,0 +1,6 @@
+package chip8emu.emulator;
+
+public interface Speaker {
+	public void setPlaying(boolean playing);
+	public void close();
+}
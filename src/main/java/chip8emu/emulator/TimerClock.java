@@ -0,0 +1,64 @@
+package chip8emu.emulator;
+
+public class TimerClock {
+	public static final int FREQUENCY = 60;
+	
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	private static final int MAX_CATCH_UP = FREQUENCY / 4;
+	
+	private long start, ticks;
+	private int multiplier;
+	private CPU cpu;
+	
+	public TimerClock(CPU cpu) {
+		this.cpu = cpu;
+		multiplier = 1;
+		reset(System.nanoTime());
+	}
+	
+	public void reset(long now) {
+		start = now;
+		ticks = 0;
+	}
+	
+	public void setMultiplier(int multiplier, long now) {
+		// Counting restarts so ticks before the change keep their old rate
+		this.multiplier = multiplier;
+		reset(now);
+	}
+	
+	public int getMultiplier() {
+		return multiplier;
+	}
+	
+	public int update(long now) {
+		int due = advance(now);
+		
+		for (int i = 0; i < due; i++) {
+			cpu.tickTimers();
+		}
+		
+		return due;
+	}
+	
+	public int advance(long now) {
+		// Ticks are counted from a fixed start time so rounding never accumulates into drift
+		long due = (now - start) * FREQUENCY * multiplier / NANOS_PER_SECOND - ticks;
+		
+		if (due <= 0) {
+			return 0;
+		}
+		
+		if (due > MAX_CATCH_UP * multiplier) {
+			ticks += due - MAX_CATCH_UP * multiplier;
+			due = MAX_CATCH_UP * multiplier;
+		}
+		
+		ticks += due;
+		return (int)due;
+	}
+	
+	public long getNextTick() {
+		return start + (ticks + 1) * NANOS_PER_SECOND / (FREQUENCY * multiplier);
+	}
+}
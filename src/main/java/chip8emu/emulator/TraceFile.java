@@ -0,0 +1,101 @@
+package chip8emu.emulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class TraceFile {
+	private static final int PAGE_ENTRIES = 1 << 20;
+	
+	private Path path;
+	private FileChannel channel;
+	private long entryCount;
+	private MappedByteBuffer pages[];
+	
+	public TraceFile(String filePath) throws IOException {
+		path = Paths.get(filePath);
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		
+		ByteBuffer header = ByteBuffer.allocate(TraceRecorder.HEADER_SIZE);
+		
+		while (header.hasRemaining()) {
+			if (channel.read(header) < 0) {
+				break;
+			}
+		}
+		
+		header.flip();
+		
+		if (header.remaining() < TraceRecorder.HEADER_SIZE || header.getInt() != TraceRecorder.MAGIC) {
+			channel.close();
+			throw new IOException("Not a trace file");
+		}
+		
+		if (header.getInt() != TraceRecorder.VERSION) {
+			channel.close();
+			throw new IOException("Unsupported trace version");
+		}
+		
+		// Pages are only mapped once something reads from them, so opening
+		// a trace costs the same however long it is
+		entryCount = (channel.size() - TraceRecorder.HEADER_SIZE) / TraceRecorder.ENTRY_SIZE;
+		pages = new MappedByteBuffer[(int)((entryCount + PAGE_ENTRIES - 1) / PAGE_ENTRIES)];
+	}
+	
+	public long getEntryCount() {
+		return entryCount;
+	}
+	
+	public String getFilePath() {
+		return path.toString();
+	}
+	
+	public int getPC(long index) throws IOException {
+		return page(index).getShort(offset(index)) & 0xfff;
+	}
+	
+	public int getOpcode(long index) throws IOException {
+		return page(index).getShort(offset(index) + 2) & 0xffff;
+	}
+	
+	public int getI(long index) throws IOException {
+		return page(index).getShort(offset(index) + 4) & 0xffff;
+	}
+	
+	// Returns TraceRecorder.NO_REGISTER if the step changed no register
+	public int getChangedRegister(long index) throws IOException {
+		return page(index).get(offset(index) + 6) & 0xff;
+	}
+	
+	public int getChangedValue(long index) throws IOException {
+		return page(index).get(offset(index) + 7) & 0xff;
+	}
+	
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	private synchronized MappedByteBuffer page(long index) throws IOException {
+		if (index < 0 || index >= entryCount) {
+			throw new IndexOutOfBoundsException("Trace entry " + index + " out of range");
+		}
+		
+		int page = (int)(index / PAGE_ENTRIES);
+		
+		if (pages[page] == null) {
+			long start = (long)page * PAGE_ENTRIES;
+			long entries = Math.min(PAGE_ENTRIES, entryCount - start);
+			pages[page] = channel.map(FileChannel.MapMode.READ_ONLY, TraceRecorder.HEADER_SIZE + start * TraceRecorder.ENTRY_SIZE, entries * TraceRecorder.ENTRY_SIZE);
+		}
+		
+		return pages[page];
+	}
+	
+	private static int offset(long index) {
+		return (int)(index % PAGE_ENTRIES) * TraceRecorder.ENTRY_SIZE;
+	}
+}
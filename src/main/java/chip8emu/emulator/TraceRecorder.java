@@ -0,0 +1,219 @@
+package chip8emu.emulator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class TraceRecorder implements Runnable {
+	// Each entry is the address and opcode of a step, I after it, then the
+	// lowest register the step changed and its new value
+	public static final int ENTRY_SIZE = 8;
+	public static final int NO_REGISTER = 0xff;
+	
+	static final int MAGIC = 0x43385452; // C8TR
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	
+	private static final int SEGMENT_ENTRIES = 1 << 16;
+	private static final int SEGMENTS = 4;
+	private static final long WRITER_CHECK_MILLIS = 100;
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+	
+	private Path path;
+	private FileChannel channel;
+	private BlockingQueue<ByteBuffer> free, full;
+	private ByteBuffer segment;
+	private Thread writer;
+	private volatile long written;
+	private volatile IOException error;
+	private boolean closed;
+	
+	public TraceRecorder(String filePath) throws IOException {
+		path = Paths.get(filePath);
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).flip();
+		
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+		
+		// The ring is allocated once, off-heap, and split into segments that
+		// the writer thread hands back after flushing them
+		int segmentSize = SEGMENT_ENTRIES * ENTRY_SIZE;
+		ByteBuffer ring = ByteBuffer.allocateDirect(SEGMENTS * segmentSize);
+		free = new ArrayBlockingQueue<ByteBuffer>(SEGMENTS);
+		full = new ArrayBlockingQueue<ByteBuffer>(SEGMENTS + 1);
+		
+		for (int i = 0; i < SEGMENTS; i++) {
+			ring.limit((i + 1) * segmentSize).position(i * segmentSize);
+			free.add(ring.slice());
+		}
+		
+		segment = free.poll();
+		writer = new Thread(this, "CHIP-8 Trace Writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	// Returns false once the writer has failed, after which the recorder is
+	// closed and must be dropped
+	boolean record(int pc, int opcode, int iRegister, byte before[], byte after[]) {
+		int register = NO_REGISTER;
+		
+		for (int i = 0; i < after.length; i++) {
+			if (before[i] != after[i]) {
+				register = i;
+				break;
+			}
+		}
+		
+		segment.putShort((short)pc);
+		segment.putShort((short)opcode);
+		segment.putShort((short)iRegister);
+		segment.put((byte)register);
+		segment.put(register != NO_REGISTER ? after[register] : 0);
+		
+		return segment.hasRemaining() || submit();
+	}
+	
+	@Override
+	public void run() {
+		while (true) {
+			ByteBuffer buffer = takeUninterruptibly(full);
+			
+			if (buffer == END) {
+				return;
+			}
+			
+			try {
+				long entries = buffer.remaining() / ENTRY_SIZE;
+				
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				
+				written += entries;
+			} catch (IOException e) {
+				// Segments keep cycling so the CPU is never left waiting, and
+				// the error is reported on close
+				if (error == null) {
+					error = e;
+					System.err.println("Could not write trace '" + path + "': " + e.getMessage());
+				}
+			}
+			
+			buffer.clear();
+			free.add(buffer);
+		}
+	}
+	
+	public void close() throws IOException {
+		// Must only be called once the recorder is detached from its CPU
+		if (closed) {
+			return;
+		}
+		
+		closed = true;
+		
+		if (segment != null && segment.position() > 0) {
+			segment.flip();
+			full.add(segment);
+		}
+		
+		full.add(END);
+		
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		channel.close();
+		
+		if (error != null) {
+			throw error;
+		}
+	}
+	
+	public String getFilePath() {
+		return path.toString();
+	}
+	
+	public long getEntriesWritten() {
+		return written;
+	}
+	
+	private boolean submit() {
+		segment.flip();
+		full.add(segment);
+		segment = null;
+		
+		// Blocks only if the writer has fallen a whole ring behind, which
+		// slows the emulator down rather than dropping entries. A writer that
+		// has hit an error or died ends the trace instead of hanging the CPU
+		while (segment == null) {
+			if (error != null || !writer.isAlive()) {
+				abandon();
+				return false;
+			}
+			
+			segment = pollUninterruptibly(free, WRITER_CHECK_MILLIS);
+		}
+		
+		return true;
+	}
+	
+	private void abandon() {
+		System.err.println("Tracing to '" + path + "' stopped after " + written + " steps, the trace writer failed");
+		
+		try {
+			close();
+		} catch (IOException e) {
+			// Already reported by the writer
+		}
+	}
+	
+	private static ByteBuffer takeUninterruptibly(BlockingQueue<ByteBuffer> queue) {
+		boolean interrupted = false;
+		
+		try {
+			while (true) {
+				try {
+					return queue.take();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	private static ByteBuffer pollUninterruptibly(BlockingQueue<ByteBuffer> queue, long millis) {
+		boolean interrupted = false;
+		
+		try {
+			while (true) {
+				try {
+					return queue.poll(millis, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package chip8emu.emulator;
+
+public class XorShiftRandom {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	private long state;
+	
+	public XorShiftRandom() {
+		this(System.nanoTime());
+	}
+	
+	public XorShiftRandom(long seed) {
+		setSeed(seed);
+	}
+	
+	public void setSeed(long seed) {
+		// Scramble the seed so nearby seeds give unrelated sequences
+		long z = seed + GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		setState(z ^ (z >>> 31));
+	}
+	
+	public int nextByte() {
+		// xorshift64*, the top bits of the multiply are the best mixed
+		state ^= state >>> 12;
+		state ^= state << 25;
+		state ^= state >>> 27;
+		return (int)((state * 0x2545f4914f6cdd1dL) >>> 56);
+	}
+	
+	public long getState() {
+		return state;
+	}
+	
+	public void setState(long state) {
+		// An all zero state would only ever produce zeroes
+		this.state = state != 0 ? state : GOLDEN_GAMMA;
+	}
+}
@@ -0,0 +1,184 @@
+package chip8emu.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+
+import javax.swing.DefaultListModel;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+
+import chip8emu.emulator.Breakpoints;
+import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
+
+public class BreakpointPanel extends JPanel implements UpdatablePanel {
+	private static final long serialVersionUID = 1L;
+	
+	private JTextField addressField, valueField;
+	private JComboBox<String> registerBox;
+	private JLabel reasonLabel;
+	private JList<Entry> list;
+	private DefaultListModel<Entry> listModel;
+	private CPU cpu;
+	private Breakpoints breakpoints;
+	
+	public BreakpointPanel(CPU cpu) {
+		this.cpu = cpu;
+		breakpoints = cpu.getBreakpoints();
+		
+		setLayout(new BorderLayout());
+		
+		
+		// Controls
+		JPanel controls = new JPanel(new GridLayout(3, 1));
+		add(controls, BorderLayout.NORTH);
+		
+		// Address row
+		JPanel addressRow = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		addressField = new JTextField(5);
+		addressRow.add(new JLabel("Address (hex):"));
+		addressRow.add(addressField);
+		
+		JButton breakButton = new JButton("Break");
+		breakButton.addActionListener((ActionEvent e) -> {
+			int address = parseHex(addressField.getText());
+			
+			if (address >= 0) {
+				breakpoints.addBreakpoint(address);
+				addEntry(String.format("Break at %x", address), () -> breakpoints.removeBreakpoint(address));
+			}
+		});
+		addressRow.add(breakButton);
+		
+		JButton readButton = new JButton("Watch Read");
+		readButton.addActionListener((ActionEvent e) -> addWatchpoint(true, false));
+		addressRow.add(readButton);
+		
+		JButton writeButton = new JButton("Watch Write");
+		writeButton.addActionListener((ActionEvent e) -> addWatchpoint(false, true));
+		addressRow.add(writeButton);
+		
+		JButton runToButton = new JButton("Run To");
+		runToButton.addActionListener((ActionEvent e) -> {
+			int address = parseHex(addressField.getText());
+			
+			if (address >= 0) {
+				breakpoints.setRunTo(address);
+				
+				if (!cpu.getRunning()) {
+					cpu.toggleRunning();
+				}
+			}
+		});
+		addressRow.add(runToButton);
+		controls.add(addressRow);
+		
+		// Register condition row
+		JPanel registerRow = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		String registers[] = new String[16];
+		
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = String.format("V%X", i);
+		}
+		
+		registerBox = new JComboBox<String>(registers);
+		valueField = new JTextField(3);
+		registerRow.add(registerBox);
+		registerRow.add(new JLabel("becomes (hex, blank for any change):"));
+		registerRow.add(valueField);
+		
+		JButton conditionButton = new JButton("Add Condition");
+		conditionButton.addActionListener((ActionEvent e) -> {
+			int register = registerBox.getSelectedIndex();
+			int value = valueField.getText().trim().isEmpty() ? Breakpoints.ANY_CHANGE : parseHex(valueField.getText());
+			
+			if (value == Breakpoints.ANY_CHANGE || value >= 0 && value <= 0xff) {
+				breakpoints.addCondition(register, value);
+				addEntry(value == Breakpoints.ANY_CHANGE
+					? String.format("V%X changes", register)
+					: String.format("V%X becomes %x", register, value), () -> breakpoints.removeCondition(register, value));
+			}
+		});
+		registerRow.add(conditionButton);
+		controls.add(registerRow);
+		
+		// Break reason
+		reasonLabel = new JLabel(" ");
+		controls.add(reasonLabel);
+		
+		
+		// List of armed breakpoints
+		listModel = new DefaultListModel<Entry>();
+		list = new JList<Entry>(listModel);
+		JScrollPane sp = new JScrollPane(list);
+		sp.setPreferredSize(new Dimension(300, 200));
+		add(sp, BorderLayout.CENTER);
+		
+		JPanel listButtons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		add(listButtons, BorderLayout.SOUTH);
+		
+		JButton removeButton = new JButton("Remove");
+		removeButton.addActionListener((ActionEvent e) -> {
+			for (Entry entry : list.getSelectedValuesList()) {
+				entry.remover.run();
+				listModel.removeElement(entry);
+			}
+		});
+		listButtons.add(removeButton);
+		
+		JButton clearButton = new JButton("Clear All");
+		clearButton.addActionListener((ActionEvent e) -> {
+			breakpoints.clear();
+			listModel.clear();
+		});
+		listButtons.add(clearButton);
+	}
+	
+	public void update(MachineState state) {
+		reasonLabel.setText(state.getBreakReason() != null ? "Stopped: " + state.getBreakReason() : " ");
+	}
+	
+	private void addWatchpoint(boolean read, boolean write) {
+		int address = parseHex(addressField.getText());
+		
+		if (address >= 0) {
+			breakpoints.addWatchpoint(address, read, write);
+			addEntry(String.format("Watch %s of %x", read ? "reads" : "writes", address), () -> breakpoints.removeWatchpoint(address, read, write));
+		}
+	}
+	
+	private void addEntry(String description, Runnable remover) {
+		listModel.addElement(new Entry(description, remover));
+	}
+	
+	private static int parseHex(String text) {
+		try {
+			return Integer.parseInt(text.trim(), 16) & 0xfff;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	private static class Entry {
+		private String description;
+		private Runnable remover;
+		
+		private Entry(String description, Runnable remover) {
+			this.description = description;
+			this.remover = remover;
+		}
+		
+		@Override
+		public String toString() {
+			return description;
+		}
+	}
+}
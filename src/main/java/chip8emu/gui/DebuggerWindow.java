@@ -4,6 +4,7 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -12,23 +13,32 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 
 import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
+import chip8emu.emulator.MachineStateListener;
+import chip8emu.emulator.RewindBuffer;
 
-public class DebuggerWindow extends JFrame {
+public class DebuggerWindow extends JFrame implements MachineStateListener {
 	private static final long serialVersionUID = 1L;
 	
 	private JLabel fpsLabel, pcLabel, spLabel, iLabel, opcodeLabel, dtLabel, stLabel, romLabel;
+	private JButton pauseButton;
 	private JPanel topPanel;
 	private JTabbedPane tabs;
 	private CPU cpu;
 	private Display display;
+	private RewindBuffer rewindBuffer;
+	private AtomicReference<MachineState> pendingState;
 	
-	public DebuggerWindow(CPU cpu, Display display) {
+	public DebuggerWindow(CPU cpu, Display display, RewindBuffer rewindBuffer) {
 		super("CHIP-8 Emulator Debugger");
 		this.cpu = cpu;
 		this.display = display;
+		this.rewindBuffer = rewindBuffer;
+		pendingState = new AtomicReference<MachineState>();
 		
 		((JComponent)getContentPane()).setBorder(new EmptyBorder(10, 10, 10, 10));
 		setLayout(new BorderLayout());
@@ -40,30 +50,39 @@ public class DebuggerWindow extends JFrame {
 		setVisible(true);
 	}
 	
-	public void update() {
+	@Override
+	public void stateChanged(MachineState state) {
+		// Called from the emulation thread. Only the newest snapshot is worth
+		// showing, so a refresh that is already queued just picks it up
+		if (pendingState.getAndSet(state) == null) {
+			SwingUtilities.invokeLater(this::update);
+		}
+	}
+	
+	private void update() {
+		MachineState state = pendingState.getAndSet(null);
+		
+		if (state == null) {
+			return;
+		}
+		
 		fpsLabel.setText("FPS: " + display.getFPS());
-		pcLabel.setText(String.format("PC: %x", cpu.getPC()));
-		spLabel.setText("SP : " + cpu.getSP());
-		iLabel.setText("I : " + String.format("%x", cpu.getI()));
-		opcodeLabel.setText(String.format("Opcode: %x", cpu.getOpcode()));
-		dtLabel.setText("Delay timer: " + cpu.getDelayTimer());
-		stLabel.setText("Sound timer: " + cpu.getSoundTimer());
+		pcLabel.setText(String.format("PC: %x", state.getPC()));
+		spLabel.setText("SP : " + state.getSP());
+		iLabel.setText("I : " + String.format("%x", state.getI()));
+		opcodeLabel.setText(String.format("Opcode: %x", state.getOpcode()));
+		dtLabel.setText("Delay timer: " + state.getDelayTimer());
+		stLabel.setText("Sound timer: " + state.getSoundTimer());
+		romLabel.setText("ROM: " + (state.getROMName() != null ? state.getROMName() : "None"));
+		pauseButton.setText(state.isRunning() ? "Pause" : "Resume");
 		
 		try {
-			((UpdatablePanel)tabs.getSelectedComponent()).update();
+			((UpdatablePanel)tabs.getSelectedComponent()).update(state);
 		} catch (Exception e) {
 			System.err.println(e.getMessage());
 		}
 	}
 	
-	public void romUpdated() {
-		if (cpu.getActiveROM() != null) {
-			romLabel.setText("ROM: " + cpu.getActiveROM().getFileName());
-		} else {
-			romLabel.setText("ROM: None");
-		}
-	}
-	
 	private void initTopPanel() {
 		// Top panel
 		topPanel = new JPanel(new BorderLayout());
@@ -108,8 +127,8 @@ public class DebuggerWindow extends JFrame {
 		
 		// ROM Label
 		romLabel = new JLabel();
+		romLabel.setText("ROM: None");
 		topLabels.add(romLabel);
-		romUpdated();
 		
 		
 		// Buttons
@@ -118,7 +137,7 @@ public class DebuggerWindow extends JFrame {
 		topPanel.add(topButtons, BorderLayout.EAST);
 		
 		// Pause button
-		JButton pauseButton = new JButton(cpu.getRunning() ? "Pause" : "Resume");
+		pauseButton = new JButton(cpu.getRunning() ? "Pause" : "Resume");
 		pauseButton.addActionListener((ActionEvent e) -> {
 			cpu.toggleRunning();
 			pauseButton.setText(cpu.getRunning() ? "Pause" : "Resume");
@@ -131,15 +150,27 @@ public class DebuggerWindow extends JFrame {
 			cpu.step();
 		});
 		topButtons.add(stepButton);
+		
+		// Step back button
+		JButton stepBackButton = new JButton("Step Back");
+		stepBackButton.setEnabled(rewindBuffer != null);
+		stepBackButton.addActionListener((ActionEvent e) -> {
+			rewindBuffer.stepBack(cpu);
+		});
+		topButtons.add(stepBackButton);
 	}
 	
 	private void initTabs() {
 		tabs = new JTabbedPane();
 		
-		tabs.add("Registers", new RegisterPanel(cpu));
-		tabs.add("Stack", new StackPanel(cpu));
-		tabs.add("Memory", new MemoryPanel(cpu));
-		tabs.add("Input", new InputPanel(cpu));
+		tabs.add("Registers", new RegisterPanel());
+		tabs.add("Stack", new StackPanel());
+		tabs.add("Memory", new MemoryPanel());
+		tabs.add("Hex Dump", new HexDumpPanel());
+		tabs.add("Input", new InputPanel());
+		tabs.add("Breakpoints", new BreakpointPanel(cpu));
+		tabs.add("Trace", new TracePanel(cpu));
+		tabs.add("Profiler", new ProfilerPanel(cpu));
 		
 		getContentPane().add(tabs, BorderLayout.CENTER);
 	}
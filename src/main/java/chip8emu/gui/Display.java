@@ -5,55 +5,72 @@ import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
 import static org.lwjgl.opengl.GL11.GL_FALSE;
 import static org.lwjgl.opengl.GL11.GL_MODELVIEW;
 import static org.lwjgl.opengl.GL11.GL_PROJECTION;
-import static org.lwjgl.opengl.GL11.GL_QUADS;
-import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
-import static org.lwjgl.opengl.GL11.glBegin;
 import static org.lwjgl.opengl.GL11.glClear;
 import static org.lwjgl.opengl.GL11.glClearColor;
-import static org.lwjgl.opengl.GL11.glColor3f;
-import static org.lwjgl.opengl.GL11.glDisable;
-import static org.lwjgl.opengl.GL11.glEnd;
 import static org.lwjgl.opengl.GL11.glLoadIdentity;
 import static org.lwjgl.opengl.GL11.glMatrixMode;
 import static org.lwjgl.opengl.GL11.glOrtho;
-import static org.lwjgl.opengl.GL11.glVertex2f;
 
 import java.awt.FileDialog;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.glfw.GLFWKeyCallback;
+import org.lwjgl.glfw.GLFWWindowRefreshCallback;
 import org.lwjgl.opengl.GL;
 
 import chip8emu.emulator.CPU;
+import chip8emu.emulator.FrameBuffer;
+import chip8emu.emulator.ROM;
+import chip8emu.emulator.ROMMetadata;
+import chip8emu.emulator.ROMRepository;
+import chip8emu.emulator.SaveState;
+import chip8emu.emulator.Scheduler;
+import chip8emu.emulator.Screen;
 
-public class Display {
+public class Display implements Screen {
 	private final int WIDTH = 640;
 	private final int HEIGHT = 480;
+	private final double IDLE_WAIT = 1.0 / 60;
 	
-	private long fps, totalFrames, lastCalc;
-	private float pixelWidth, pixelHeight;
+	private volatile long fps;
+	private long totalFrames, lastCalc;
 	private long window;
-	private boolean pixels[][];
+	private FrameBuffer frameBuffer, frame;
+	private TextureRenderer renderer;
 	private boolean isDebuggerOpen;
+	private boolean refreshRequested;
 	private Map<Integer, Integer> keyMap;
 	private CPU cpu;
+	private Scheduler scheduler;
+	private ROMRepository repository;
+	private SaveState quickSave;
 	private DebuggerWindow debugger;
+	private Integer clockSpeed;
 	
-	public Display(CPU cpu) {
+	public Display(CPU cpu, Scheduler scheduler, ROMRepository repository, Integer clockSpeed) {
 		this.cpu = cpu;
-		cpu.setDisplay(this);
+		this.scheduler = scheduler;
+		this.repository = repository;
+		this.clockSpeed = clockSpeed;
+		quickSave = new SaveState();
+		frameBuffer = new FrameBuffer();
+		frame = new FrameBuffer();
+		cpu.setScreen(this);
 		
 		isDebuggerOpen = false;
-		pixelWidth = WIDTH / 64f;
-		pixelHeight = HEIGHT / 32f;
+		refreshRequested = true;
 		
 		GLFWErrorCallback.createPrint(System.err).set();
 		
@@ -66,7 +83,6 @@ public class Display {
 	    GLFW.glfwWindowHint(GLFW.GLFW_RESIZABLE, GL_FALSE);
 	    
 	    window = GLFW.glfwCreateWindow(WIDTH, HEIGHT, "CHIP-8 Emulator", 0, 0);
-	    pixels = new boolean[64][32];
 	    createKeyMaps();
 	    
 	    GLFW.glfwSetKeyCallback(window, GLFWKeyCallback.create((window, key, scanCode, action, mods) -> {
@@ -83,6 +99,12 @@ public class Display {
 		    		}
 		    	} else if (key == GLFW.GLFW_KEY_TAB) {
 		    		showROMPicker();
+		    	} else if (key == GLFW.GLFW_KEY_T) {
+		    		toggleTurbo();
+		    	} else if (key == GLFW.GLFW_KEY_F5) {
+		    		quickSave();
+		    	} else if (key == GLFW.GLFW_KEY_F9) {
+		    		quickLoad();
 		    	}
 	    	}
 	    	
@@ -93,15 +115,17 @@ public class Display {
 	    	}
 	    }));
 	    
+	    GLFW.glfwSetWindowRefreshCallback(window, GLFWWindowRefreshCallback.create((window) -> {
+	    	refreshRequested = true;
+	    }));
+	    
 	    GLFW.glfwMakeContextCurrent(window);
 	    GLFW.glfwSwapInterval(1);
 	    GLFW.glfwShowWindow(window);
 	    
 	    run();
 	    
-	    if (debugger != null) {
-	    	debugger.dispatchEvent(new WindowEvent(debugger, WindowEvent.WINDOW_CLOSING));
-	    }
+	    closeDebugger();
 	    
 	    GLFW.glfwDestroyWindow(window);
 	    GLFW.glfwTerminate();
@@ -116,58 +140,104 @@ public class Display {
 		File files[] = dialog.getFiles();
 		
 		if (files != null && files.length > 0) {
-			cpu.loadROM(files[0].getAbsolutePath());
-			
-			if (debugger != null) {
-				debugger.romUpdated();
+			try {
+				ROM rom = repository.load(files[0].getAbsolutePath());
+				ROMMetadata metadata = repository.getMetadata(rom.getHash());
+				cpu.loadROM(rom);
+				
+				// An explicit --clock always wins, and a ROM without a preferred
+				// speed goes back to the default rather than keeping the last one's
+				if (clockSpeed != null) {
+					scheduler.setClockSpeed(clockSpeed);
+				} else if (metadata != null) {
+					scheduler.setClockSpeed(metadata.getClockSpeed());
+				} else {
+					scheduler.setClockSpeed(Scheduler.DEFAULT_CLOCK_SPEED);
+				}
+				
+				System.out.println("Loaded ROM: " + files[0].getAbsolutePath());
+			} catch (IOException e) {
+				JOptionPane.showMessageDialog(null, "File '" + files[0].getAbsolutePath() + "' could not be loaded", "Error", JOptionPane.OK_OPTION);
 			}
 		}
 	}
 	
-	public void openDebugger() {
-		if (isDebuggerOpen) {
+	public void toggleTurbo() {
+		scheduler.setTurbo(!scheduler.isTurbo());
+		
+		if (scheduler.isTurbo()) {
+			System.out.println("Turbo on (" + scheduler.getTurboMultiplier() + "x)");
+		} else {
+			System.out.println("Turbo off");
+		}
+	}
+	
+	public void quickSave() {
+		if (cpu.getActiveROM() == null) {
 			return;
 		}
 		
-		isDebuggerOpen = true;
-		debugger = new DebuggerWindow(cpu, this);
-		debugger.addWindowListener(new WindowAdapter() {
-			@Override
-			public void windowClosing(WindowEvent e) {
-				isDebuggerOpen = false;
-			}
-		});
+		cpu.saveState(quickSave);
+		System.out.println("Saved state");
 	}
 	
-	public void clear() {
-		for (int i = 0; i < pixels.length; i++) {
-			for (int j = 0; j < pixels[i].length; j++) {
-				pixels[i][j] = false;
-			}
+	public void quickLoad() {
+		if (quickSave.isEmpty()) {
+			return;
+		}
+		
+		try {
+			cpu.loadState(quickSave);
+			System.out.println("Loaded state");
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
 		}
 	}
 	
-	public boolean drawByte(int x, int y, short data) {
-		boolean collision = false;
-		x %= 64;
-		y %= 32;
-		
-		x = Math.abs(x);
-		y = Math.abs(y);
-		
-		for (int i = 0; i < 8; i++) {
-			int bit = data & 0b1;
-			int curX = (x + 7 - i) % 64;
-			int curBit = pixels[curX][y] ? 1 : 0;
-			int newBit = bit ^ curBit;
-			
+	public void openDebugger() {
+		// The debugger is only ever built, closed and checked on the EDT,
+		// which is also where windowClosing runs
+		SwingUtilities.invokeLater(() -> {
+			if (isDebuggerOpen) {
+				return;
+			}
 			
-			setPixel(x + 7 - i, y, newBit == 1);
-			collision = (newBit == 0 && curBit == 1) || collision;
-			data >>= 1;
-		}
-		
-		return collision;
+			isDebuggerOpen = true;
+			debugger = new DebuggerWindow(cpu, this, scheduler.getRewindBuffer());
+			debugger.addWindowListener(new WindowAdapter() {
+				@Override
+				public void windowClosing(WindowEvent e) {
+					scheduler.setStateListener(null);
+					isDebuggerOpen = false;
+				}
+			});
+			scheduler.setStateListener(debugger);
+		});
+	}
+	
+	@Override
+	public synchronized void clear() {
+		frameBuffer.clear();
+	}
+	
+	@Override
+	public synchronized boolean drawByte(int x, int y, int data) {
+		return frameBuffer.drawByte(x, y, data);
+	}
+	
+	@Override
+	public synchronized boolean isPixelSet(int x, int y) {
+		return frameBuffer.isPixelSet(x, y);
+	}
+	
+	@Override
+	public synchronized long getRow(int y) {
+		return frameBuffer.getRow(y);
+	}
+	
+	@Override
+	public synchronized void setRow(int y, long row) {
+		frameBuffer.setRow(y, row);
 	}
 	
 	public long getFPS() {
@@ -181,41 +251,61 @@ public class Display {
 		glMatrixMode(GL_PROJECTION);
 		glOrtho(0, WIDTH, HEIGHT, 0, 1, -1);
 		glMatrixMode(GL_MODELVIEW);
-		glDisable(GL_TEXTURE_2D);
+		renderer = new TextureRenderer(WIDTH, HEIGHT);
 		totalFrames = 0;
 		lastCalc = System.currentTimeMillis();
+		scheduler.start();
 		
 		while (!GLFW.glfwWindowShouldClose(window)) {
-			glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 			GLFW.glfwPollEvents();
-			glLoadIdentity();
 			
-			if (cpu.getRunning()) {
-				cpu.step();
-			}
-				
-			for (int i = 0; i < pixels.length; i++) {
-				for (int j = 0; j < pixels[i].length; j++) {
-					if (pixels[i][j]) {
-						drawPixel(i, j);
-					}
-				}
+			// Unchanged frames skip both the redraw and the buffer swap, so
+			// wait for input instead of spinning without vsync to pace us.
+			// Only the latest frame is copied, so in turbo mode the frames
+			// produced between two refreshes are skipped
+			if (copyFrame() || refreshRequested) {
+				refreshRequested = false;
+				glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+				glLoadIdentity();
+				renderer.render(frame);
+				GLFW.glfwSwapBuffers(window);
+				totalFrames++;
+			} else {
+				GLFW.glfwWaitEventsTimeout(IDLE_WAIT);
 			}
 			
-			totalFrames++;
-			
 			if (System.currentTimeMillis() >= lastCalc + 1000) {
 				fps = totalFrames;
 				totalFrames = 0;
 				lastCalc = System.currentTimeMillis();
 			}
-			
-			if (debugger != null) {
-				debugger.update();
-			}
-			
-			GLFW.glfwSwapBuffers(window);
 	    }
+		
+		scheduler.stop();
+		renderer.dispose();
+	}
+	
+	private void closeDebugger() {
+		try {
+			SwingUtilities.invokeAndWait(() -> {
+				if (isDebuggerOpen) {
+					debugger.dispatchEvent(new WindowEvent(debugger, WindowEvent.WINDOW_CLOSING));
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (InvocationTargetException e) {
+			System.err.println("Could not close the debugger: " + e.getCause());
+		}
+	}
+	
+	private synchronized boolean copyFrame() {
+		if (frameBuffer.getGeneration() == frame.getGeneration()) {
+			return false;
+		}
+		
+		frameBuffer.copyTo(frame);
+		return true;
 	}
 	
 	private void createKeyMaps() {
@@ -241,24 +331,4 @@ public class Display {
 		keyMap.put(GLFW.GLFW_KEY_C, 0xb);
 		keyMap.put(GLFW.GLFW_KEY_V, 0xf);
 	}
-	
-	private void setPixel(int x, int y, boolean state) {
-		x %= 64;
-		y %= 32;
-		pixels[x][y] = state;
-	}
-	
-	private void drawPixel(int x, int y) {
-		glColor3f(1f, 1f, 1f);
-		
-		float xPos = x * pixelWidth;
-		float yPos = y * pixelHeight;
-		
-		glBegin(GL_QUADS);
-		glVertex2f(xPos, yPos);
-		glVertex2f(xPos + pixelWidth, yPos);
-		glVertex2f(xPos + pixelWidth, yPos + pixelHeight);
-		glVertex2f(xPos, yPos + pixelHeight);
-		glEnd();
-	}
 }
@@ -0,0 +1,110 @@
+package chip8emu.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+
+import chip8emu.emulator.MachineState;
+
+public class HexDumpPanel extends JPanel implements UpdatablePanel {
+	private static final long serialVersionUID = 1L;
+	private static final int BYTES_PER_ROW = 16;
+	
+	private JScrollPane sp;
+	private JTable table;
+	private MemoryTableModel tableModel;
+	
+	public HexDumpPanel() {
+		setLayout(new BorderLayout());
+		
+		tableModel = new HexDumpTableModel();
+		
+		table = new JTable(tableModel);
+		table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, table.getFont().getSize()));
+		table.setCellSelectionEnabled(true);
+		table.getTableHeader().setReorderingAllowed(false);
+		table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+				super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+				
+				if (!isSelected) {
+					boolean changed = column >= 1 && column <= BYTES_PER_ROW
+						&& tableModel.isChanged(row * BYTES_PER_ROW + column - 1);
+					setBackground(changed ? MemoryPanel.CHANGED_COLOR : table.getBackground());
+				}
+				
+				return this;
+			}
+		});
+		
+		table.getColumnModel().getColumn(0).setPreferredWidth(60);
+		table.getColumnModel().getColumn(BYTES_PER_ROW + 1).setPreferredWidth(160);
+		
+		for (int i = 1; i <= BYTES_PER_ROW; i++) {
+			table.getColumnModel().getColumn(i).setPreferredWidth(28);
+		}
+		
+		sp = new JScrollPane(table);
+		sp.setPreferredSize(new Dimension(300, 300));
+		add(sp, BorderLayout.CENTER);
+	}
+	
+	public void update(MachineState state) {
+		tableModel.setState(state);
+	}
+	
+	private static class HexDumpTableModel extends MemoryTableModel {
+		private static final long serialVersionUID = 1L;
+		
+		private HexDumpTableModel() {
+			super(BYTES_PER_ROW);
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return BYTES_PER_ROW + 2;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			if (column == 0) {
+				return "Address";
+			} else if (column > BYTES_PER_ROW) {
+				return "ASCII";
+			}
+			
+			return String.format("%X", column - 1);
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			MachineState state = getState();
+			int start = row * BYTES_PER_ROW;
+			
+			if (column == 0) {
+				return String.format("%04x", start);
+			} else if (column <= BYTES_PER_ROW) {
+				int address = start + column - 1;
+				return address < state.getMemorySize() ? String.format("%02x", state.readMemory(address)) : "";
+			}
+			
+			StringBuilder text = new StringBuilder(BYTES_PER_ROW);
+			
+			for (int address = start; address < start + BYTES_PER_ROW && address < state.getMemorySize(); address++) {
+				int value = state.readMemory(address);
+				text.append(value >= 0x20 && value < 0x7f ? (char)value : '.');
+			}
+			
+			return text.toString();
+		}
+	}
+}
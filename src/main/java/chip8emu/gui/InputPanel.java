@@ -6,18 +6,15 @@ import java.awt.GridLayout;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 
-import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
 
 public class InputPanel extends JPanel implements UpdatablePanel {
 	private static final long serialVersionUID = 1L;
 	
 	private Color releasedColor, pressedColor;
 	private JLabel labels[];
-	private CPU cpu;
 	
-	public InputPanel(CPU cpu) {
-		this.cpu = cpu;
-		
+	public InputPanel() {
 		GridLayout layout = new GridLayout(4, 4);
 		layout.setHgap(5);
 		layout.setVgap(5);
@@ -56,11 +53,9 @@ public class InputPanel extends JPanel implements UpdatablePanel {
 		add(labels[0xf]);
 	}
 	
-	public void update() {
-		boolean[] keys = cpu.getKeys();
-		
-		for (int i = 0; i < keys.length; i++) {
-			labels[i].setBackground(keys[i] ? pressedColor : releasedColor);
+	public void update(MachineState state) {
+		for (int i = 0; i < labels.length; i++) {
+			labels[i].setBackground(state.isKeyPressed(i) ? pressedColor : releasedColor);
 		}
 	}
 }
@@ -1,63 +1,92 @@
 package chip8emu.gui;
 
 import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
 
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
 
-import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
 
 public class MemoryPanel extends JPanel implements UpdatablePanel {
 	private static final long serialVersionUID = 1L;
 	
+	static final Color CHANGED_COLOR = new Color(255, 230, 150);
+	
 	private JScrollPane sp;
 	private JTable table;
-	private DefaultTableModel tableModel;
-	private CPU cpu;
+	private MemoryTableModel tableModel;
 	
-	public MemoryPanel(CPU cpu) {
-		this.cpu = cpu;
-		
+	public MemoryPanel() {
 		setLayout(new BorderLayout());
 		
-		String columns[] = { "Address", "Value (Hex)", "Value (Decimal)" };
-		tableModel = new DefaultTableModel(null, columns) {
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public boolean isCellEditable(int row, int column) {
-				return false;
-			}
-		};
+		tableModel = new ByteTableModel();
 		
 		table = new JTable(tableModel);
 		table.setColumnSelectionAllowed(false);
 		table.setRowSelectionAllowed(true);
 		table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-		
-		for (int i = 0; i < cpu.getMemory().length; i++) {
-			tableModel.addRow(new Object[] {});
-		}
+		table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+				super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+				
+				if (!isSelected) {
+					setBackground(tableModel.isChanged(row) ? CHANGED_COLOR : table.getBackground());
+				}
+				
+				return this;
+			}
+		});
 		
 		sp = new JScrollPane(table);
 		sp.setPreferredSize(new Dimension(300, 300));
 		add(sp, BorderLayout.CENTER);
 	}
 	
-	public void update() {
-		short[] mem = cpu.getMemory();
+	public void update(MachineState state) {
+		tableModel.setState(state);
 		
-		for (int i = 0; i < mem.length; i++) {
-			tableModel.setValueAt(String.format("%x", i), i, 0);
-			tableModel.setValueAt(String.format("%x", mem[i]), i, 1);
-			tableModel.setValueAt(mem[i], i, 2);
+		ListSelectionModel selectionModel = table.getSelectionModel();
+		selectionModel.setSelectionInterval(state.getPC(), state.getPC());
+	}
+	
+	private static class ByteTableModel extends MemoryTableModel {
+		private static final long serialVersionUID = 1L;
+		private static final String COLUMNS[] = { "Address", "Value (Hex)", "Value (Decimal)" };
+		
+		private ByteTableModel() {
+			super(1);
 		}
 		
-		ListSelectionModel selectionModel = table.getSelectionModel();
-		selectionModel.setSelectionInterval(cpu.getPC(), cpu.getPC());
+		@Override
+		public int getColumnCount() {
+			return COLUMNS.length;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			return COLUMNS[column];
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			// Only called for visible cells, so formatting here is cheap
+			switch (column) {
+			case 0:
+				return String.format("%x", row);
+			case 1:
+				return String.format("%x", getState().readMemory(row));
+			default:
+				return getState().readMemory(row);
+			}
+		}
 	}
 }
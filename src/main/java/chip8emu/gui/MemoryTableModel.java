@@ -0,0 +1,93 @@
+package chip8emu.gui;
+
+import java.util.BitSet;
+
+import javax.swing.table.AbstractTableModel;
+
+import chip8emu.emulator.MachineState;
+
+public abstract class MemoryTableModel extends AbstractTableModel {
+	private static final long serialVersionUID = 1L;
+	
+	private int bytesPerRow;
+	private MachineState state;
+	private BitSet changed, dirty;
+	
+	protected MemoryTableModel(int bytesPerRow) {
+		this.bytesPerRow = bytesPerRow;
+		changed = new BitSet();
+		dirty = new BitSet();
+	}
+	
+	public void setState(MachineState next) {
+		MachineState previous = state;
+		state = next;
+		
+		if (previous == null || previous.getMemorySize() != next.getMemorySize()) {
+			changed.clear();
+			fireTableDataChanged();
+			return;
+		}
+		
+		// Rows highlighted last time have to be repainted as well, so they
+		// can lose their highlight
+		dirty.clear();
+		dirty.or(changed);
+		changed.clear();
+		
+		for (int address = 0; address < next.getMemorySize(); address++) {
+			if (previous.readMemory(address) != next.readMemory(address)) {
+				changed.set(address);
+			}
+		}
+		
+		dirty.or(changed);
+		fireRowRanges();
+	}
+	
+	public MachineState getState() {
+		return state;
+	}
+	
+	public boolean isChanged(int address) {
+		return changed.get(address);
+	}
+	
+	@Override
+	public int getRowCount() {
+		if (state == null) {
+			return 0;
+		}
+		
+		return (state.getMemorySize() + bytesPerRow - 1) / bytesPerRow;
+	}
+	
+	@Override
+	public boolean isCellEditable(int row, int column) {
+		return false;
+	}
+	
+	private void fireRowRanges() {
+		// One event per run of consecutive dirty rows rather than per cell
+		int first = -1, last = -1;
+		
+		for (int address = dirty.nextSetBit(0); address >= 0; address = dirty.nextSetBit(address + 1)) {
+			int row = address / bytesPerRow;
+			
+			if (first >= 0 && row > last + 1) {
+				fireTableRowsUpdated(first, last);
+				first = -1;
+			}
+			
+			if (first < 0) {
+				first = row;
+			}
+			
+			last = row;
+		}
+		
+		if (first >= 0) {
+			fireTableRowsUpdated(first, last);
+		}
+	}
+}
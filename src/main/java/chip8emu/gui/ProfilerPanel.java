@@ -0,0 +1,242 @@
+package chip8emu.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSplitPane;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+
+import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
+import chip8emu.emulator.Profiler;
+
+public class ProfilerPanel extends JPanel implements UpdatablePanel {
+	private static final long serialVersionUID = 1L;
+	private static final int HOT_ADDRESSES = 20;
+	
+	private JButton profileButton;
+	private JLabel totalLabel;
+	private Heatmap heatmap;
+	private DefaultTableModel hotModel, familyModel;
+	private CPU cpu;
+	
+	public ProfilerPanel(CPU cpu) {
+		this.cpu = cpu;
+		
+		setLayout(new BorderLayout());
+		
+		
+		// Controls
+		JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		add(controls, BorderLayout.NORTH);
+		
+		profileButton = new JButton(cpu.getProfiler() != null ? "Stop Profiling" : "Start Profiling");
+		profileButton.addActionListener((ActionEvent e) -> {
+			cpu.setProfiler(cpu.getProfiler() != null ? null : new Profiler());
+			profileButton.setText(cpu.getProfiler() != null ? "Stop Profiling" : "Start Profiling");
+		});
+		controls.add(profileButton);
+		
+		JButton resetButton = new JButton("Reset");
+		resetButton.addActionListener((ActionEvent e) -> {
+			if (cpu.getProfiler() != null) {
+				cpu.setProfiler(new Profiler());
+			}
+		});
+		controls.add(resetButton);
+		
+		totalLabel = new JLabel(" ");
+		controls.add(totalLabel);
+		
+		
+		// Heatmap
+		heatmap = new Heatmap();
+		add(heatmap, BorderLayout.WEST);
+		
+		
+		// Hot addresses and opcode families
+		hotModel = createModel(new String[] { "Address", "Opcode", "Family", "Hits", "Share" });
+		familyModel = createModel(new String[] { "Family", "Count", "Share" });
+		
+		JScrollPane hotPane = new JScrollPane(new JTable(hotModel));
+		JScrollPane familyPane = new JScrollPane(new JTable(familyModel));
+		hotPane.setPreferredSize(new Dimension(300, 150));
+		familyPane.setPreferredSize(new Dimension(300, 150));
+		
+		JSplitPane tables = new JSplitPane(JSplitPane.VERTICAL_SPLIT, hotPane, familyPane);
+		tables.setResizeWeight(0.5);
+		add(tables, BorderLayout.CENTER);
+	}
+	
+	public void update(MachineState state) {
+		// The last profile stays on screen after profiling stops
+		if (!state.isProfiling()) {
+			return;
+		}
+		
+		long total = 0;
+		
+		for (int family = 0; family < Profiler.FAMILIES.length; family++) {
+			total += state.getFamilyCount(family);
+		}
+		
+		totalLabel.setText(total + " instructions profiled");
+		heatmap.update(state);
+		updateHotAddresses(state, total);
+		updateFamilies(state, total);
+	}
+	
+	private void updateHotAddresses(MachineState state, long total) {
+		// Only the hottest few are kept, in descending order, rather than
+		// sorting every address
+		List<Integer> hottest = new ArrayList<Integer>(HOT_ADDRESSES + 1);
+		
+		for (int address = 0; address < state.getMemorySize(); address++) {
+			long hits = state.getAddressHits(address);
+			
+			if (hits == 0 || hottest.size() == HOT_ADDRESSES && hits <= state.getAddressHits(hottest.get(HOT_ADDRESSES - 1))) {
+				continue;
+			}
+			
+			int index = hottest.size();
+			
+			while (index > 0 && state.getAddressHits(hottest.get(index - 1)) < hits) {
+				index--;
+			}
+			
+			hottest.add(index, address);
+			
+			if (hottest.size() > HOT_ADDRESSES) {
+				hottest.remove(HOT_ADDRESSES);
+			}
+		}
+		
+		hotModel.setRowCount(0);
+		
+		for (int address : hottest) {
+			int opcode = (state.readMemory(address) << 8) | (address + 1 < state.getMemorySize() ? state.readMemory(address + 1) : 0);
+			long hits = state.getAddressHits(address);
+			
+			hotModel.addRow(new Object[] {
+				String.format("%03x", address),
+				String.format("%04x", opcode),
+				Profiler.FAMILIES[Profiler.family(opcode)],
+				hits,
+				share(hits, total)
+			});
+		}
+	}
+	
+	private void updateFamilies(MachineState state, long total) {
+		List<Integer> families = new ArrayList<Integer>();
+		
+		for (int family = 0; family < Profiler.FAMILIES.length; family++) {
+			if (state.getFamilyCount(family) > 0) {
+				families.add(family);
+			}
+		}
+		
+		families.sort((a, b) -> Long.compare(state.getFamilyCount(b), state.getFamilyCount(a)));
+		familyModel.setRowCount(0);
+		
+		for (int family : families) {
+			familyModel.addRow(new Object[] {
+				Profiler.FAMILIES[family],
+				state.getFamilyCount(family),
+				share(state.getFamilyCount(family), total)
+			});
+		}
+	}
+	
+	private static String share(long count, long total) {
+		return String.format("%.1f%%", total > 0 ? 100.0 * count / total : 0);
+	}
+	
+	private static DefaultTableModel createModel(String columns[]) {
+		return new DefaultTableModel(null, columns) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			public boolean isCellEditable(int row, int column) {
+				return false;
+			}
+		};
+	}
+	
+	private static class Heatmap extends JComponent {
+		private static final long serialVersionUID = 1L;
+		private static final int COLUMNS = 64;
+		private static final int CELL_SIZE = 4;
+		
+		private BufferedImage image;
+		private MachineState state;
+		
+		private Heatmap() {
+			image = new BufferedImage(COLUMNS, COLUMNS, BufferedImage.TYPE_INT_RGB);
+			setPreferredSize(new Dimension(COLUMNS * CELL_SIZE, COLUMNS * CELL_SIZE));
+			
+			// Registers the component with the tooltip manager
+			setToolTipText("");
+		}
+		
+		private void update(MachineState state) {
+			this.state = state;
+			long max = 0;
+			
+			for (int address = 0; address < state.getMemorySize(); address++) {
+				max = Math.max(max, state.getAddressHits(address));
+			}
+			
+			// Log scale, so a tight loop does not wash out everything else,
+			// going from black through red to yellow
+			double scale = Math.log1p(max);
+			
+			for (int address = 0; address < state.getMemorySize() && address < COLUMNS * COLUMNS; address++) {
+				long hits = state.getAddressHits(address);
+				int rgb = 0;
+				
+				if (hits > 0) {
+					double heat = Math.max(Math.log1p(hits) / scale, 0.1);
+					int red = (int)(Math.min(heat * 2, 1) * 255);
+					int green = (int)(Math.max(heat * 2 - 1, 0) * 255);
+					rgb = (red << 16) | (green << 8);
+				}
+				
+				image.setRGB(address % COLUMNS, address / COLUMNS, rgb);
+			}
+			
+			repaint();
+		}
+		
+		@Override
+		public String getToolTipText(MouseEvent e) {
+			int column = e.getX() / CELL_SIZE;
+			int row = e.getY() / CELL_SIZE;
+			
+			if (state == null || column >= COLUMNS || row >= COLUMNS) {
+				return null;
+			}
+			
+			int address = row * COLUMNS + column;
+			return String.format("%03x: %d hits", address, state.getAddressHits(address));
+		}
+		
+		@Override
+		protected void paintComponent(Graphics g) {
+			g.drawImage(image, 0, 0, COLUMNS * CELL_SIZE, COLUMNS * CELL_SIZE, null);
+		}
+	}
+}
@@ -9,7 +9,7 @@ import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
 import javax.swing.table.DefaultTableModel;
 
-import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
 
 public class RegisterPanel extends JPanel implements UpdatablePanel {
 	private static final long serialVersionUID = 1L;
@@ -17,11 +17,8 @@ public class RegisterPanel extends JPanel implements UpdatablePanel {
 	private JScrollPane sp;
 	private JTable table;
 	private DefaultTableModel tableModel;
-	private CPU cpu;
 	
-	public RegisterPanel(CPU cpu) {
-		this.cpu = cpu;
-		
+	public RegisterPanel() {
 		setLayout(new BorderLayout());
 		
 		String columns[] = { "Address", "Value (Hex)", "Value (Decimal)" };
@@ -39,22 +36,19 @@ public class RegisterPanel extends JPanel implements UpdatablePanel {
 		table.setRowSelectionAllowed(true);
 		table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 		
-		for (int i = 0; i < cpu.getRegisters().length; i++) {
-			tableModel.addRow(new Object[] {});
-		}
-		
 		sp = new JScrollPane(table);
 		sp.setPreferredSize(new Dimension(300, 300));
 		add(sp, BorderLayout.CENTER);
 	}
 	
-	public void update() {
-		short[] regs = cpu.getRegisters();
+	public void update(MachineState state) {
+		// Sized from the first state, so the panel needs no CPU
+		tableModel.setRowCount(state.getRegisterCount());
 		
-		for (int i = 0; i < regs.length; i++) {
+		for (int i = 0; i < state.getRegisterCount(); i++) {
 			tableModel.setValueAt(String.format("%x", i), i, 0);
-			tableModel.setValueAt(String.format("%x", regs[i]), i, 1);
-			tableModel.setValueAt(regs[i], i, 2);
+			tableModel.setValueAt(String.format("%x", state.getRegister(i)), i, 1);
+			tableModel.setValueAt(state.getRegister(i), i, 2);
 		}
 	}
 }
@@ -9,7 +9,7 @@ import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
 import javax.swing.table.DefaultTableModel;
 
-import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
 
 public class StackPanel extends JPanel implements UpdatablePanel {
 	private static final long serialVersionUID = 1L;
@@ -17,11 +17,8 @@ public class StackPanel extends JPanel implements UpdatablePanel {
 	private JScrollPane sp;
 	private JTable table;
 	private DefaultTableModel tableModel;
-	private CPU cpu;
 	
-	public StackPanel(CPU cpu) {
-		this.cpu = cpu;
-		
+	public StackPanel() {
 		setLayout(new BorderLayout());
 		
 		String columns[] = { "Address", "Value (Hex)", "Value (Decimal)" };
@@ -39,22 +36,18 @@ public class StackPanel extends JPanel implements UpdatablePanel {
 		table.setRowSelectionAllowed(true);
 		table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 		
-		for (int i = 0; i < cpu.getStack().length; i++) {
-			tableModel.addRow(new Object[] {});
-		}
-		
 		sp = new JScrollPane(table);
 		sp.setPreferredSize(new Dimension(300, 300));
 		add(sp, BorderLayout.CENTER);
 	}
 	
-	public void update() {
-		short[] stack = cpu.getStack();
+	public void update(MachineState state) {
+		tableModel.setRowCount(state.getStackDepth());
 		
-		for (int i = 0; i < stack.length; i++) {
+		for (int i = 0; i < state.getStackDepth(); i++) {
 			tableModel.setValueAt(String.format("%x", i), i, 0);
-			tableModel.setValueAt(String.format("%x", stack[i]), i, 1);
-			tableModel.setValueAt(stack[i], i, 2);
+			tableModel.setValueAt(String.format("%x", state.getStackEntry(i)), i, 1);
+			tableModel.setValueAt(state.getStackEntry(i), i, 2);
 		}
 	}
 }
@@ -0,0 +1,92 @@
+package chip8emu.gui;
+
+import static org.lwjgl.opengl.GL11.GL_LUMINANCE;
+import static org.lwjgl.opengl.GL11.GL_NEAREST;
+import static org.lwjgl.opengl.GL11.GL_QUADS;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_2D;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_MAG_FILTER;
+import static org.lwjgl.opengl.GL11.GL_TEXTURE_MIN_FILTER;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL11.GL_UNSIGNED_BYTE;
+import static org.lwjgl.opengl.GL11.glBegin;
+import static org.lwjgl.opengl.GL11.glBindTexture;
+import static org.lwjgl.opengl.GL11.glColor3f;
+import static org.lwjgl.opengl.GL11.glDeleteTextures;
+import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL11.glEnd;
+import static org.lwjgl.opengl.GL11.glGenTextures;
+import static org.lwjgl.opengl.GL11.glPixelStorei;
+import static org.lwjgl.opengl.GL11.glTexCoord2f;
+import static org.lwjgl.opengl.GL11.glTexImage2D;
+import static org.lwjgl.opengl.GL11.glTexParameteri;
+import static org.lwjgl.opengl.GL11.glTexSubImage2D;
+import static org.lwjgl.opengl.GL11.glVertex2f;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.BufferUtils;
+
+import chip8emu.emulator.FrameBuffer;
+
+public class TextureRenderer {
+	private int texture;
+	private float width, height;
+	private long uploadedGeneration;
+	private ByteBuffer pixels;
+	
+	public TextureRenderer(float width, float height) {
+		this.width = width;
+		this.height = height;
+		
+		uploadedGeneration = -1;
+		pixels = BufferUtils.createByteBuffer(FrameBuffer.WIDTH * FrameBuffer.HEIGHT);
+		
+		texture = glGenTextures();
+		glBindTexture(GL_TEXTURE_2D, texture);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+		glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_LUMINANCE, FrameBuffer.WIDTH, FrameBuffer.HEIGHT, 0, GL_LUMINANCE, GL_UNSIGNED_BYTE, pixels);
+	}
+	
+	public void render(FrameBuffer frame) {
+		glEnable(GL_TEXTURE_2D);
+		glBindTexture(GL_TEXTURE_2D, texture);
+		
+		if (frame.getGeneration() != uploadedGeneration) {
+			upload(frame);
+		}
+		
+		glColor3f(1f, 1f, 1f);
+		glBegin(GL_QUADS);
+		glTexCoord2f(0f, 0f);
+		glVertex2f(0f, 0f);
+		glTexCoord2f(1f, 0f);
+		glVertex2f(width, 0f);
+		glTexCoord2f(1f, 1f);
+		glVertex2f(width, height);
+		glTexCoord2f(0f, 1f);
+		glVertex2f(0f, height);
+		glEnd();
+	}
+	
+	public void dispose() {
+		glDeleteTextures(texture);
+	}
+	
+	private void upload(FrameBuffer frame) {
+		int i = 0;
+		
+		for (int y = 0; y < FrameBuffer.HEIGHT; y++) {
+			long row = frame.getRow(y);
+			
+			for (int x = 0; x < FrameBuffer.WIDTH; x++) {
+				pixels.put(i++, row < 0 ? (byte)0xff : 0);
+				row <<= 1;
+			}
+		}
+		
+		glTexSubImage2D(GL_TEXTURE_2D, 0, 0, 0, FrameBuffer.WIDTH, FrameBuffer.HEIGHT, GL_LUMINANCE, GL_UNSIGNED_BYTE, pixels);
+		uploadedGeneration = frame.getGeneration();
+	}
+}
@@ -0,0 +1,227 @@
+package chip8emu.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FileDialog;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.table.AbstractTableModel;
+
+import chip8emu.emulator.CPU;
+import chip8emu.emulator.MachineState;
+import chip8emu.emulator.TraceFile;
+import chip8emu.emulator.TraceRecorder;
+
+public class TracePanel extends JPanel implements UpdatablePanel {
+	private static final long serialVersionUID = 1L;
+	private static final String COLUMNS[] = { "Step", "PC", "Opcode", "I", "Changed" };
+	
+	// The row count is capped so the table's height in pixels cannot overflow
+	private static final int MAX_ROWS = Integer.MAX_VALUE / 32;
+	
+	private JButton recordButton;
+	private JTextField gotoField;
+	private JLabel statusLabel;
+	private JTable table;
+	private TraceTableModel tableModel;
+	private TraceFile traceFile;
+	private CPU cpu;
+	
+	public TracePanel(CPU cpu) {
+		this.cpu = cpu;
+		
+		setLayout(new BorderLayout());
+		
+		
+		// Controls
+		JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		add(controls, BorderLayout.NORTH);
+		
+		recordButton = new JButton(cpu.getTraceRecorder() != null ? "Stop Trace" : "Start Trace");
+		recordButton.addActionListener((ActionEvent e) -> {
+			if (cpu.getTraceRecorder() != null) {
+				stopTrace();
+			} else {
+				startTrace();
+			}
+		});
+		controls.add(recordButton);
+		
+		JButton openButton = new JButton("Open...");
+		openButton.addActionListener((ActionEvent e) -> {
+			String filePath = chooseFile("Open a trace", FileDialog.LOAD);
+			
+			if (filePath != null) {
+				open(filePath);
+			}
+		});
+		controls.add(openButton);
+		
+		gotoField = new JTextField(8);
+		gotoField.addActionListener((ActionEvent e) -> goTo());
+		controls.add(new JLabel("Go to step:"));
+		controls.add(gotoField);
+		
+		statusLabel = new JLabel(" ");
+		controls.add(statusLabel);
+		
+		
+		// Trace table
+		tableModel = new TraceTableModel();
+		table = new JTable(tableModel);
+		table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, table.getFont().getSize()));
+		table.getTableHeader().setReorderingAllowed(false);
+		
+		JScrollPane sp = new JScrollPane(table);
+		sp.setPreferredSize(new Dimension(300, 300));
+		add(sp, BorderLayout.CENTER);
+	}
+	
+	public void update(MachineState state) {
+		TraceRecorder recorder = cpu.getTraceRecorder();
+		
+		// The CPU drops a recorder whose writer failed
+		recordButton.setText(recorder != null ? "Stop Trace" : "Start Trace");
+		
+		if (recorder != null) {
+			statusLabel.setText("Tracing to " + recorder.getFilePath() + ": " + recorder.getEntriesWritten() + " steps written");
+		}
+	}
+	
+	private void startTrace() {
+		String filePath = chooseFile("Save trace as", FileDialog.SAVE);
+		
+		if (filePath == null) {
+			return;
+		}
+		
+		try {
+			TraceRecorder previous = cpu.setTraceRecorder(new TraceRecorder(filePath));
+			
+			if (previous != null) {
+				previous.close();
+			}
+			
+			recordButton.setText("Stop Trace");
+		} catch (IOException e) {
+			JOptionPane.showMessageDialog(null, "Could not trace to '" + filePath + "': " + e.getMessage(), "Error", JOptionPane.OK_OPTION);
+		}
+	}
+	
+	private void stopTrace() {
+		TraceRecorder recorder = cpu.setTraceRecorder(null);
+		recordButton.setText("Start Trace");
+		
+		if (recorder == null) {
+			return;
+		}
+		
+		try {
+			recorder.close();
+			open(recorder.getFilePath());
+		} catch (IOException e) {
+			JOptionPane.showMessageDialog(null, "Could not write trace '" + recorder.getFilePath() + "': " + e.getMessage(), "Error", JOptionPane.OK_OPTION);
+		}
+	}
+	
+	private void open(String filePath) {
+		try {
+			TraceFile file = new TraceFile(filePath);
+			
+			if (traceFile != null) {
+				traceFile.close();
+			}
+			
+			traceFile = file;
+			tableModel.fireTableDataChanged();
+			
+			if (file.getEntryCount() > MAX_ROWS) {
+				statusLabel.setText(file.getFilePath() + ": showing the first " + MAX_ROWS + " of " + file.getEntryCount() + " steps");
+			} else {
+				statusLabel.setText(file.getFilePath() + ": " + file.getEntryCount() + " steps");
+			}
+		} catch (IOException e) {
+			JOptionPane.showMessageDialog(null, "Could not open trace '" + filePath + "': " + e.getMessage(), "Error", JOptionPane.OK_OPTION);
+		}
+	}
+	
+	private void goTo() {
+		try {
+			int row = (int)Math.min(Long.parseLong(gotoField.getText().trim()), tableModel.getRowCount() - 1L);
+			
+			if (row >= 0) {
+				table.getSelectionModel().setSelectionInterval(row, row);
+				table.scrollRectToVisible(table.getCellRect(row, 0, true));
+			}
+		} catch (NumberFormatException e) {
+			gotoField.setText("");
+		}
+	}
+	
+	private static String chooseFile(String title, int mode) {
+		FileDialog dialog = new FileDialog((JFrame)null, title);
+		dialog.setMode(mode);
+		dialog.setVisible(true);
+		File files[] = dialog.getFiles();
+		
+		return files != null && files.length > 0 ? files[0].getAbsolutePath() : null;
+	}
+	
+	private class TraceTableModel extends AbstractTableModel {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		public int getRowCount() {
+			// Rows are read from the mapped file as they scroll into view
+			return traceFile != null ? (int)Math.min(traceFile.getEntryCount(), MAX_ROWS) : 0;
+		}
+		
+		@Override
+		public int getColumnCount() {
+			return COLUMNS.length;
+		}
+		
+		@Override
+		public String getColumnName(int column) {
+			return COLUMNS[column];
+		}
+		
+		@Override
+		public boolean isCellEditable(int row, int column) {
+			return false;
+		}
+		
+		@Override
+		public Object getValueAt(int row, int column) {
+			try {
+				switch (column) {
+				case 0:
+					return row;
+				case 1:
+					return String.format("%03x", traceFile.getPC(row));
+				case 2:
+					return String.format("%04x", traceFile.getOpcode(row));
+				case 3:
+					return String.format("%03x", traceFile.getI(row));
+				default:
+					int register = traceFile.getChangedRegister(row);
+					return register != TraceRecorder.NO_REGISTER ? String.format("V%X = %02x", register, traceFile.getChangedValue(row)) : "";
+				}
+			} catch (IOException e) {
+				return "?";
+			}
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package chip8emu.gui;
 
+import chip8emu.emulator.MachineState;
+
 public interface UpdatablePanel {
-	public void update();
+	public void update(MachineState state);
 }
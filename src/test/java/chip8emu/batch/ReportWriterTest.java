@@ -0,0 +1,47 @@
+package chip8emu.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class ReportWriterTest {
+	@Test
+	public void writesCSVWithOneLineEnding() throws IOException {
+		StringWriter out = new StringWriter();
+		ReportWriter report = ReportWriter.create("csv", out);
+		
+		report.begin();
+		report.write(new BatchResult(new BatchJob("pong.ch8", 1), "abc", 600, 4200, 3, 0x1f, 2000000, null));
+		report.end();
+		
+		assertEquals("rom,hash,seed,frames,instructions,unknown,checksum,millis,error\n"
+			+ "pong.ch8,abc,1,600,4200,3,000000000000001f,2.000,\n", out.toString());
+	}
+	
+	@Test
+	public void leavesTheHashOfAROMThatFailedToLoadEmpty() throws IOException {
+		StringWriter out = new StringWriter();
+		ReportWriter report = ReportWriter.create("csv", out);
+		
+		report.write(new BatchResult(new BatchJob("missing, really.ch8", 0), null, 0, 0, 0, 0, 0, "java.io.IOException: gone"));
+		report.end();
+		
+		assertEquals("\"missing, really.ch8\",,0,0,0,0,0000000000000000,0.000,java.io.IOException: gone\n", out.toString());
+	}
+	
+	@Test
+	public void writesAMissingHashAsJSONNull() throws IOException {
+		StringWriter out = new StringWriter();
+		ReportWriter report = ReportWriter.create("json", out);
+		
+		report.begin();
+		report.write(new BatchResult(new BatchJob("a.ch8", 0), null, 0, 0, 0, 0, 0, "failed"));
+		report.end();
+		
+		assertEquals("[\n  {\"rom\": \"a.ch8\", \"hash\": null, \"seed\": 0, \"frames\": 0, \"instructions\": 0, \"unknown\": 0,"
+			+ " \"checksum\": \"0000000000000000\", \"millis\": 0.000, \"error\": \"failed\"}\n]\n", out.toString());
+	}
+}
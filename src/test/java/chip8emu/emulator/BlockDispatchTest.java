@@ -0,0 +1,82 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class BlockDispatchTest {
+	// Draws random sprites in a loop, with a subroutine, skips, arithmetic
+	// on VF and Fx55 stores that rewrite an instruction inside the loop
+	static final int MIXED_PROGRAM[] = {
+		0x6a00, // 200: LD VA, 00
+		0x6b00, // 202: LD VB, 00
+		0xc23f, // 204: RND V2, 3F
+		0xc31f, // 206: RND V3, 1F
+		0xf229, // 208: LD F, V2
+		0xd235, // 20A: DRW V2, V3, 5
+		0x2220, // 20C: CALL 220
+		0x7a01, // 20E: ADD VA, 01
+		0x3a10, // 210: SE VA, 10
+		0x1204, // 212: JP 204
+		0x6a00, // 214: LD VA, 00
+		0x7b01, // 216: ADD VB, 01
+		0x84b4, // 218: ADD V4, VB
+		0x8546, // 21A: SHR V5, V4
+		0x1204, // 21C: JP 204
+		0x0000, // 21E: unused
+		0x8b24, // 220: ADD VB, V2
+		0x607b, // 222: LD V0, 7B
+		0x6102, // 224: LD V1, 02
+		0xa216, // 226: LD I, 216
+		0xf155, // 228: LD [I], V1 rewrites 216 to ADD VB, 02
+		0x6103, // 22A: LD V1, 03
+		0xf155, // 22C: LD [I], V1 rewrites it again to ADD VB, 03
+		0x00ee  // 22E: RET
+	};
+	
+	@Test
+	public void matchesInterpreterOnSelfModifyingStore() throws IOException {
+		assertSameExecution(DecodeCacheTest.STORE_PROGRAM, 11);
+	}
+	
+	@Test
+	public void matchesInterpreterOnSelfModifyingBCD() throws IOException {
+		assertSameExecution(DecodeCacheTest.BCD_PROGRAM, 1000);
+	}
+	
+	@Test
+	public void matchesInterpreterOnMixedProgram() throws IOException {
+		assertSameExecution(MIXED_PROGRAM, 20000);
+	}
+	
+	@Test
+	public void runsExactlyTheRequestedCount() throws IOException {
+		// Budgets that end inside a block finish it with single steps
+		CPU cpu = TestMachines.load(MIXED_PROGRAM);
+		cpu.setBlockDispatch(true);
+		
+		for (int count = 1; count < 50; count++) {
+			long before = cpu.getInstructionCount();
+			cpu.run(count);
+			assertEquals(before + count, cpu.getInstructionCount());
+		}
+	}
+	
+	private static void assertSameExecution(int program[], int instructions) throws IOException {
+		CPU interpreter = TestMachines.load(program);
+		CPU blocks = TestMachines.load(program);
+		blocks.setBlockDispatch(true);
+		
+		// Uneven batch sizes so block boundaries and budgets keep shifting
+		for (int executed = 0, batch = 1; executed < instructions; executed += batch, batch = batch % 7 + 1) {
+			interpreter.run(batch);
+			blocks.run(batch);
+			
+			String message = "after " + (executed + batch) + " instructions";
+			assertEquals(message, interpreter.getInstructionCount(), blocks.getInstructionCount());
+			TestMachines.assertSameMachine(message, interpreter, blocks);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class BreakpointsTest {
+	// Counts in V0 and loops back through the breakpoint
+	private static final int LOOP_PROGRAM[] = { 0x7001, 0x1200 };
+	
+	// Sets the delay timer, then passes through 0x204 once before spinning
+	private static final int TIMER_PROGRAM[] = { 0x6050, 0xf015, 0x7101, 0x1206 };
+	
+	@Test
+	public void resumingRunsTheInstructionItStoppedOn() throws IOException {
+		CPU cpu = breakAt(0x200, LOOP_PROGRAM);
+		
+		cpu.run(10);
+		assertStoppedAt(cpu, 0x200, 0);
+		
+		resume(cpu);
+		cpu.run(10);
+		assertStoppedAt(cpu, 0x200, 1);
+	}
+	
+	@Test
+	public void steppingBackToABreakpointStopsAgain() throws IOException {
+		CPU cpu = breakAt(0x200, LOOP_PROGRAM);
+		
+		cpu.run(10);
+		cpu.step();
+		cpu.step();
+		assertEquals(0x200, cpu.getPC());
+		
+		resume(cpu);
+		cpu.run(10);
+		assertStoppedAt(cpu, 0x200, 1);
+	}
+	
+	@Test
+	public void loadingAStateOntoABreakpointStopsAgain() throws IOException {
+		CPU cpu = breakAt(0x200, LOOP_PROGRAM);
+		SaveState state = new SaveState();
+		
+		cpu.run(10);
+		cpu.saveState(state);
+		resume(cpu);
+		cpu.run(3);
+		
+		cpu.loadState(state);
+		resume(cpu);
+		cpu.run(10);
+		assertStoppedAt(cpu, 0x200, 0);
+	}
+	
+	@Test
+	public void aFrameABreakStopsIsFinishedOnResume() throws IOException {
+		CPU cpu = breakAt(0x204, TIMER_PROGRAM);
+		CPU reference = TestMachines.load(TIMER_PROGRAM);
+		
+		cpu.runFrame(10, 0);
+		assertFalse(cpu.getRunning());
+		assertEquals(0, cpu.getFrame());
+		assertEquals(0x50, cpu.getDelayTimer());
+		assertEquals(2, cpu.getInstructionCount());
+		
+		resume(cpu);
+		cpu.runFrame(10, 0);
+		reference.runFrame(10, 0);
+		assertEquals(1, cpu.getFrame());
+		assertEquals(reference.getInstructionCount(), cpu.getInstructionCount());
+		TestMachines.assertSameMachine("resumed frame", reference, cpu);
+	}
+	
+	@Test
+	public void moviePlaybackStopsAtABreak() throws IOException {
+		CPU cpu = breakAt(0x204, TIMER_PROGRAM);
+		MoviePlayer player = new MoviePlayer(cpu, new Movie(cpu.getActiveROM().getHash(), 0, 10, new short[3]));
+		
+		player.start();
+		assertFalse(player.step());
+		assertEquals(0, player.getFrame());
+		
+		resume(cpu);
+		assertTrue(player.step());
+		assertTrue(player.step());
+		assertTrue(player.step());
+		assertFalse(player.step());
+		assertEquals(3, player.getFrame());
+		assertEquals(3, cpu.getFrame());
+	}
+	
+	private static CPU breakAt(int address, int... program) throws IOException {
+		CPU cpu = TestMachines.load(program);
+		cpu.getBreakpoints().addBreakpoint(address);
+		return cpu;
+	}
+	
+	private static void resume(CPU cpu) {
+		assertFalse(cpu.getRunning());
+		cpu.toggleRunning();
+	}
+	
+	private static void assertStoppedAt(CPU cpu, int address, int count) {
+		assertFalse(cpu.getRunning());
+		assertEquals(address, cpu.getPC());
+		assertEquals(count, cpu.getRegisters()[0]);
+	}
+}
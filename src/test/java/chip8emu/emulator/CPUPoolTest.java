@@ -0,0 +1,44 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class CPUPoolTest {
+	@Test
+	public void releasedCPUKeepsNoConfiguration() throws IOException {
+		CPUPool pool = new CPUPool(1);
+		CPU cpu = pool.acquire();
+		Screen screen = cpu.getScreen();
+		
+		cpu.setDeterministic(true);
+		cpu.setSeed(42);
+		cpu.setBlockDispatch(true);
+		cpu.setProfiler(new Profiler());
+		cpu.getBreakpoints().addBreakpoint(0x202);
+		cpu.setScreen(new FrameBuffer());
+		cpu.loadROM(TestMachines.rom(0x6001, 0x1202));
+		cpu.run(10);
+		pool.release(cpu);
+		
+		CPU reused = pool.acquire();
+		assertSame(cpu, reused);
+		assertNull(reused.getActiveROM());
+		assertFalse(reused.getDeterministic());
+		assertFalse(reused.isSeeded());
+		assertFalse(reused.getBlockDispatch());
+		assertNull(reused.getProfiler());
+		assertNull(reused.getTraceRecorder());
+		assertFalse(reused.getBreakpoints().isArmed());
+		assertTrue(reused.getRunning());
+		assertEquals(0, reused.getInstructionCount());
+		assertSame(screen, reused.getScreen());
+		assertEquals(ROM.LOAD_ADDRESS, reused.getPC());
+	}
+}
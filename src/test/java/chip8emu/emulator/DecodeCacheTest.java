@@ -0,0 +1,87 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class DecodeCacheTest {
+	// Calls a subroutine that sets VE to 1, then rewrites it with Fx55 to set
+	// VE to 2 and calls it again
+	static final int STORE_PROGRAM[] = {
+		0x606e, // 200: LD V0, 6E
+		0x6102, // 202: LD V1, 02
+		0x220e, // 204: CALL 20E
+		0xa20e, // 206: LD I, 20E
+		0xf155, // 208: LD [I], V1
+		0x220e, // 20A: CALL 20E
+		0x120c, // 20C: JP 20C
+		0x6e01, // 20E: LD VE, 01
+		0x00ee  // 210: RET
+	};
+	
+	// Jumps back to 202 until VE is 2, then rewrites that jump with Fx33 so
+	// it goes to 200 and resets VE instead. A stale decode keeps counting up
+	static final int BCD_PROGRAM[] = {
+		0x6e00, // 200: LD VE, 00
+		0x7e01, // 202: ADD VE, 01
+		0x3e02, // 204: SE VE, 02
+		0x120e, // 206: JP 20E
+		0x6032, // 208: LD V0, 50
+		0xa20f, // 20A: LD I, 20F
+		0xf033, // 20C: LD B, V0
+		0x1202  // 20E: JP 202
+	};
+	
+	@Test
+	public void storeInvalidatesRewrittenInstruction() throws IOException {
+		CPU cpu = TestMachines.load(STORE_PROGRAM);
+		
+		cpu.run(4);
+		assertEquals(1, cpu.getRegisters()[0xe]);
+		
+		cpu.run(7);
+		assertEquals(0x20c, cpu.getPC());
+		assertEquals(2, cpu.getRegisters()[0xe]);
+	}
+	
+	@Test
+	public void bcdInvalidatesRewrittenInstruction() throws IOException {
+		CPU cpu = TestMachines.load(BCD_PROGRAM);
+		
+		for (int i = 0; i < 200; i++) {
+			cpu.step();
+			assertTrue("VE ran past 2", cpu.getRegisters()[0xe] <= 2);
+		}
+		
+		assertEquals(0x00, cpu.getMemory()[0x20f]);
+	}
+	
+	@Test
+	public void loadingAROMInvalidatesTheCache() throws IOException {
+		CPU cpu = TestMachines.load(0x6e01, 0x1202);
+		cpu.run(2);
+		
+		cpu.loadROM(TestMachines.rom(0x6e07, 0x1202));
+		cpu.run(2);
+		assertEquals(7, cpu.getRegisters()[0xe]);
+	}
+	
+	@Test
+	public void loadingAStateInvalidatesTheCache() throws IOException {
+		// The state is saved before 200 is rewritten, so restoring it has to
+		// bring back the original instruction
+		CPU cpu = TestMachines.load(0x6e01, 0x60a5, 0xa200, 0xf055, 0x1208);
+		SaveState state = new SaveState();
+		cpu.saveState(state);
+		
+		cpu.run(5);
+		assertEquals((byte)0xa5, cpu.getMemory()[0x200]);
+		
+		cpu.loadState(state);
+		cpu.step();
+		assertEquals(1, cpu.getRegisters()[0xe]);
+	}
+}
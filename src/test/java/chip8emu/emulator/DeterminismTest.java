@@ -0,0 +1,99 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class DeterminismTest {
+	// Counts frames with key 0 held and draws that count's digit at a random
+	// position, so the screen depends on both the seed and the input
+	static final int KEY_PROGRAM[] = {
+		0x6200, 0xe2a1, 0x7301, 0xc03f, 0xc11f, 0xf329, 0xd015, 0x1202
+	};
+	private static final int FRAMES = 600;
+	private static final int INSTRUCTIONS = 11;
+	
+	@Test
+	public void sameSeedAndInputGiveTheSameFrames() throws IOException {
+		long expected[] = play(machine(42, false));
+		long actual[] = play(machine(42, false));
+		
+		for (int i = 0; i < FRAMES; i++) {
+			assertEquals("frame " + i, expected[i], actual[i]);
+		}
+	}
+	
+	@Test
+	public void blockDispatchGivesTheSameFrames() throws IOException {
+		long expected[] = play(machine(42, false));
+		long actual[] = play(machine(42, true));
+		
+		for (int i = 0; i < FRAMES; i++) {
+			assertEquals("frame " + i, expected[i], actual[i]);
+		}
+	}
+	
+	@Test
+	public void anotherSeedGivesOtherFrames() throws IOException {
+		assertNotEquals(play(machine(42, false))[FRAMES - 1], play(machine(43, false))[FRAMES - 1]);
+	}
+	
+	@Test
+	public void replayingAMovieGivesTheSameFrames() throws IOException {
+		CPU recorded = machine(42, false);
+		short masks[] = new short[FRAMES];
+		
+		for (int i = 0; i < FRAMES; i++) {
+			masks[i] = (short)keyMask(i);
+		}
+		
+		play(recorded);
+		
+		CPU replayed = TestMachines.load(KEY_PROGRAM);
+		new MoviePlayer(replayed, new Movie(replayed.getActiveROM().getHash(), 42, INSTRUCTIONS, masks)).playToEnd();
+		TestMachines.assertSameMachine("replayed movie", recorded, replayed);
+	}
+	
+	@Test
+	public void keysOnlyChangeAtFrameBoundaries() throws IOException {
+		CPU cpu = machine(42, false);
+		
+		// A tap that is released before the frame runs is still held for it
+		cpu.keyPressed(0x0, true);
+		cpu.keyPressed(0x0, false);
+		assertEquals(0x1, cpu.runFrame(INSTRUCTIONS));
+		assertEquals(0x0, cpu.runFrame(INSTRUCTIONS));
+		
+		cpu.keyPressed(0x5, true);
+		assertEquals(0x0, cpu.getKeyMask());
+		assertEquals(0x20, cpu.runFrame(INSTRUCTIONS));
+		assertEquals(0x20, cpu.getKeyMask());
+	}
+	
+	private static CPU machine(long seed, boolean blockDispatch) throws IOException {
+		CPU cpu = TestMachines.load(KEY_PROGRAM);
+		cpu.setDeterministic(true);
+		cpu.setSeed(seed);
+		cpu.setBlockDispatch(blockDispatch);
+		cpu.loadROM(cpu.getActiveROM());
+		return cpu;
+	}
+	
+	private static long[] play(CPU cpu) {
+		long checksums[] = new long[FRAMES];
+		
+		for (int i = 0; i < FRAMES; i++) {
+			cpu.runFrame(INSTRUCTIONS, keyMask(i));
+			checksums[i] = FrameBuffer.checksum(cpu.getScreen());
+		}
+		
+		return checksums;
+	}
+	
+	private static int keyMask(int frame) {
+		return frame % 7 < 3 ? 0x1 : 0x0;
+	}
+}
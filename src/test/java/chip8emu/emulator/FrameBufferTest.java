@@ -0,0 +1,109 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FrameBufferTest {
+	@Test
+	public void drawsLeftmostPixelInMostSignificantBit() {
+		FrameBuffer frameBuffer = new FrameBuffer();
+		
+		assertFalse(frameBuffer.drawByte(0, 0, 0x80));
+		assertTrue(frameBuffer.isPixelSet(0, 0));
+		assertFalse(frameBuffer.isPixelSet(1, 0));
+		assertEquals(Long.MIN_VALUE, frameBuffer.getRow(0));
+	}
+	
+	@Test
+	public void wrapsAroundBothEdges() {
+		FrameBuffer frameBuffer = new FrameBuffer();
+		frameBuffer.drawByte(60, 35, 0xff);
+		
+		for (int x = 60; x < 68; x++) {
+			assertTrue(frameBuffer.isPixelSet(x % 64, 3));
+		}
+		
+		assertFalse(frameBuffer.isPixelSet(4, 3));
+		assertFalse(frameBuffer.isPixelSet(59, 3));
+	}
+	
+	@Test
+	public void reportsCollisionOnlyWhenAPixelIsErased() {
+		FrameBuffer frameBuffer = new FrameBuffer();
+		
+		assertFalse(frameBuffer.drawByte(10, 5, 0xf0));
+		assertFalse(frameBuffer.drawByte(14, 5, 0xf0));
+		assertTrue(frameBuffer.drawByte(10, 5, 0x80));
+		assertFalse(frameBuffer.isPixelSet(10, 5));
+	}
+	
+	@Test
+	public void emptySpriteDoesNotDirtyTheFrame() {
+		FrameBuffer frameBuffer = new FrameBuffer();
+		long generation = frameBuffer.getGeneration();
+		
+		assertFalse(frameBuffer.drawByte(0, 0, 0));
+		assertEquals(generation, frameBuffer.getGeneration());
+	}
+	
+	@Test
+	public void matchesPixelArrayDisplay() {
+		// Random draws compared against the per-pixel boolean[][] display the
+		// packed framebuffer replaced
+		FrameBuffer frameBuffer = new FrameBuffer();
+		PixelArrayDisplay reference = new PixelArrayDisplay();
+		Random random = new Random(1);
+		
+		for (int i = 0; i < 20000; i++) {
+			if (random.nextInt(500) == 0) {
+				frameBuffer.clear();
+				reference.clear();
+				continue;
+			}
+			
+			int x = random.nextInt(256);
+			int y = random.nextInt(256);
+			int data = random.nextInt(256);
+			
+			assertEquals("collision of draw " + i, reference.drawByte(x, y, data), frameBuffer.drawByte(x, y, data));
+		}
+		
+		for (int x = 0; x < FrameBuffer.WIDTH; x++) {
+			for (int y = 0; y < FrameBuffer.HEIGHT; y++) {
+				assertEquals("pixel " + x + ", " + y, reference.pixels[x][y], frameBuffer.isPixelSet(x, y));
+			}
+		}
+	}
+	
+	private static class PixelArrayDisplay {
+		private boolean pixels[][] = new boolean[64][32];
+		
+		private void clear() {
+			pixels = new boolean[64][32];
+		}
+		
+		private boolean drawByte(int x, int y, int data) {
+			boolean collision = false;
+			x %= 64;
+			y %= 32;
+			
+			for (int i = 0; i < 8; i++) {
+				int bit = data & 0b1;
+				int curX = (x + 7 - i) % 64;
+				int curBit = pixels[curX][y] ? 1 : 0;
+				int newBit = bit ^ curBit;
+				
+				pixels[curX][y] = newBit == 1;
+				collision = (newBit == 0 && curBit == 1) || collision;
+				data >>= 1;
+			}
+			
+			return collision;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ROMRepositoryTest {
+	@Test
+	public void sharesOneImageBetweenPathsWithTheSameContent() throws IOException {
+		Path directory = Files.createTempDirectory("roms");
+		Path first = write(directory, "a.ch8", 1, 100);
+		Path second = write(directory, "b.ch8", 1, 100);
+		ROMRepository repository = new ROMRepository();
+		
+		ROM a = repository.load(first.toString());
+		ROM b = repository.load(second.toString());
+		
+		assertEquals(a.getHash(), b.getHash());
+		assertEquals(1, repository.getCachedCount());
+		assertEquals(2, repository.getPathCount());
+		assertEquals(100, repository.getSize());
+	}
+	
+	@Test
+	public void evictsPathsAlongWithTheirImages() throws IOException {
+		Path directory = Files.createTempDirectory("roms");
+		ROMRepository repository = new ROMRepository(ROM.MAX_SIZE);
+		
+		for (int i = 0; i < 10; i++) {
+			repository.load(write(directory, i + ".ch8", i, 2000).toString());
+		}
+		
+		assertEquals(1, repository.getCachedCount());
+		assertEquals(1, repository.getPathCount());
+		assertEquals(2000, repository.getSize());
+	}
+	
+	@Test
+	public void matchesMetadataWhateverTheCaseOfItsHash() throws IOException {
+		ROMRepository repository = new ROMRepository();
+		repository.loadMetadata(metadata("ABCDEF.clock=500\nABCDEF.title=Pong\n"));
+		
+		ROMMetadata metadata = repository.getMetadata("abcdef");
+		assertEquals(500, metadata.getClockSpeed());
+		assertEquals("Pong", metadata.getTitle());
+	}
+	
+	@Test
+	public void laterMetadataReplacesEarlier() throws IOException {
+		ROMRepository repository = new ROMRepository();
+		repository.loadMetadata(metadata("abcdef.clock=500\nabcdef.title=Pong\n"));
+		repository.loadMetadata(metadata("abcdef.clock=1000\n"));
+		
+		ROMMetadata metadata = repository.getMetadata("abcdef");
+		assertEquals(1000, metadata.getClockSpeed());
+		assertNull(metadata.getTitle());
+	}
+	
+	private static InputStream metadata(String properties) {
+		return new ByteArrayInputStream(properties.getBytes(StandardCharsets.ISO_8859_1));
+	}
+	
+	private static Path write(Path directory, String name, int value, int size) throws IOException {
+		byte data[] = new byte[size];
+		Arrays.fill(data, (byte)value);
+		return Files.write(directory.resolve(name), data);
+	}
+}
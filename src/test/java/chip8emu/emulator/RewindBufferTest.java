@@ -0,0 +1,96 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RewindBufferTest {
+	@Test
+	public void stepsBackThroughEveryRecordedState() throws IOException {
+		// Enough snapshots to span several keyframes and the deltas between
+		CPU cpu = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		RewindBuffer buffer = new RewindBuffer(200, 1);
+		List<byte[]> recorded = record(cpu, buffer, 100);
+		
+		assertEquals(100, buffer.getCount());
+		assertTrue(buffer.getSize() < 100L * SaveState.SIZE);
+		
+		for (int i = recorded.size() - 1; i >= 0; i--) {
+			assertTrue(buffer.stepBack(cpu));
+			assertArrayEquals("snapshot " + i, recorded.get(i), bytes(cpu));
+		}
+		
+		assertFalse(buffer.stepBack(cpu));
+	}
+	
+	@Test
+	public void dropsTheOldestKeyframeWhenFull() throws IOException {
+		CPU cpu = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		RewindBuffer buffer = new RewindBuffer(45, 1);
+		List<byte[]> recorded = record(cpu, buffer, 120);
+		int count = buffer.getCount();
+		
+		assertTrue(count > 0 && count <= 45);
+		
+		for (int i = 0; i < count; i++) {
+			assertTrue(buffer.stepBack(cpu));
+			assertArrayEquals("snapshot " + i, recorded.get(recorded.size() - 1 - i), bytes(cpu));
+		}
+		
+		assertFalse(buffer.stepBack(cpu));
+	}
+	
+	@Test
+	public void recordsOncePerFrameInterval() throws IOException {
+		CPU cpu = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		RewindBuffer buffer = new RewindBuffer(100, 6);
+		
+		buffer.framesElapsed(cpu, 5);
+		assertEquals(0, buffer.getCount());
+		
+		buffer.framesElapsed(cpu, 1);
+		assertEquals(1, buffer.getCount());
+		
+		buffer.framesElapsed(cpu, 12);
+		assertEquals(2, buffer.getCount());
+	}
+	
+	@Test
+	public void forgetsHistoryFromAnotherROM() throws IOException {
+		CPU cpu = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		RewindBuffer buffer = new RewindBuffer(100, 1);
+		record(cpu, buffer, 10);
+		
+		cpu.loadROM(TestMachines.rom(0x1200));
+		assertFalse(buffer.stepBack(cpu));
+		assertEquals(0, buffer.getCount());
+	}
+	
+	private static List<byte[]> record(CPU cpu, RewindBuffer buffer, int snapshots) {
+		List<byte[]> recorded = new ArrayList<byte[]>();
+		
+		for (int i = 0; i < snapshots; i++) {
+			cpu.runFrame(97);
+			buffer.record(cpu);
+			recorded.add(bytes(cpu));
+		}
+		
+		return recorded;
+	}
+	
+	private static byte[] bytes(CPU cpu) {
+		SaveState state = new SaveState();
+		byte data[] = new byte[SaveState.SIZE];
+		
+		cpu.saveState(state);
+		state.toBytes(data);
+		return data;
+	}
+}
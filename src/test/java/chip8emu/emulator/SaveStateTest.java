@@ -0,0 +1,120 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import org.junit.Test;
+
+public class SaveStateTest {
+	@Test
+	public void restoresTheMachineItWasTakenFrom() throws IOException {
+		CPU cpu = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		CPU reference = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		SaveState state = new SaveState();
+		
+		cpu.run(5000);
+		reference.run(5000);
+		cpu.saveState(state);
+		
+		cpu.run(3000);
+		cpu.loadState(state);
+		TestMachines.assertSameMachine("restored state", reference, cpu);
+		
+		// The random number generator is part of the state, so both keep
+		// drawing the same sprites
+		cpu.run(3000);
+		reference.run(3000);
+		TestMachines.assertSameMachine("restored state", reference, cpu);
+	}
+	
+	@Test
+	public void restoresTimersAndAPendingKeyWait() throws IOException {
+		CPU cpu = TestMachines.load(0x6030, 0xf015, 0xf018, 0xf30a, 0x1208);
+		CPU restored = TestMachines.load(0x6030, 0xf015, 0xf018, 0xf30a, 0x1208);
+		SaveState state = new SaveState();
+		
+		cpu.run(10);
+		cpu.tickTimers();
+		cpu.saveState(state);
+		restored.loadState(state);
+		
+		assertEquals(0x2f, restored.getDelayTimer());
+		assertEquals(0x2f, restored.getSoundTimer());
+		
+		cpu.keyPressed(0x9, true);
+		restored.keyPressed(0x9, true);
+		TestMachines.assertSameMachine("restored state", cpu, restored);
+		assertEquals(0x9, restored.getRegisters()[3]);
+	}
+	
+	@Test
+	public void survivesAWriteAndReadThroughAChannel() throws IOException {
+		CPU cpu = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		CPU restored = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+		SaveState state = new SaveState();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		
+		cpu.run(4321);
+		cpu.saveState(state);
+		state.writeTo(Channels.newChannel(output));
+		assertEquals(SaveState.SIZE, output.size());
+		
+		SaveState read = new SaveState();
+		read.readFrom(Channels.newChannel(new ByteArrayInputStream(output.toByteArray())));
+		restored.loadState(read);
+		TestMachines.assertSameMachine("restored state", cpu, restored);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void refusesAStateFromAnotherROM() throws IOException {
+		CPU cpu = TestMachines.load(0x1200);
+		SaveState state = new SaveState();
+		cpu.saveState(state);
+		
+		TestMachines.load(0x1202, 0x1202).loadState(state);
+	}
+	
+	@Test
+	public void refusesADamagedStateWithoutChangingTheMachine() throws IOException {
+		int payload = SaveState.HEADER_SIZE;
+		int damage[][] = {
+			{ payload, 0x10 }, // pc past the end of memory
+			{ payload + 2, 0x20 }, // stack pointer past the stack
+			{ payload + 2, 0xfe }, // stack pointer below empty
+			{ payload + 3, 0xf0 }, // I past the end of memory
+			{ payload + 10, 0x10 }, // key register past VF
+			{ payload + 37, 0x20 } // return address past the end of memory
+		};
+		
+		for (int i[] : damage) {
+			CPU cpu = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+			CPU reference = TestMachines.load(BlockDispatchTest.MIXED_PROGRAM);
+			SaveState state = new SaveState();
+			byte data[] = new byte[SaveState.SIZE];
+			
+			cpu.run(1000);
+			reference.run(1000);
+			cpu.saveState(state);
+			state.toBytes(data);
+			data[i[0]] = (byte)i[1];
+			state.fromBytes(data);
+			
+			try {
+				cpu.loadState(state);
+				fail("Loaded a state damaged at " + i[0]);
+			} catch (IllegalArgumentException e) {
+				TestMachines.assertSameMachine("refused state", reference, cpu);
+			}
+		}
+	}
+	
+	@Test(expected = IOException.class)
+	public void refusesAFileThatIsNotASaveState() throws IOException {
+		new SaveState().readFrom(Channels.newChannel(new ByteArrayInputStream(new byte[SaveState.SIZE])));
+	}
+}
@@ -0,0 +1,45 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+final class TestMachines {
+	private TestMachines() {
+	}
+	
+	static CPU load(int... opcodes) throws IOException {
+		CPU cpu = new CPU();
+		cpu.setSeed(0);
+		cpu.loadROM(rom(opcodes));
+		return cpu;
+	}
+	
+	static ROM rom(int... opcodes) throws IOException {
+		byte data[] = new byte[opcodes.length * 2];
+		
+		for (int i = 0; i < opcodes.length; i++) {
+			data[i * 2] = (byte)(opcodes[i] >> 8);
+			data[i * 2 + 1] = (byte)opcodes[i];
+		}
+		
+		return new ROM("test.ch8", data);
+	}
+	
+	// Everything a save state holds. The instruction count is a statistic
+	// of the host run and is compared separately where it matters
+	static void assertSameMachine(String message, CPU expected, CPU actual) {
+		assertEquals(message, expected.getPC(), actual.getPC());
+		assertEquals(message, expected.getSP(), actual.getSP());
+		assertEquals(message, expected.getI(), actual.getI());
+		assertEquals(message, expected.getOpcode(), actual.getOpcode());
+		assertEquals(message, expected.getDelayTimer(), actual.getDelayTimer());
+		assertEquals(message, expected.getSoundTimer(), actual.getSoundTimer());
+		assertEquals(message, expected.getFrame(), actual.getFrame());
+		assertArrayEquals(message, expected.getRegisters(), actual.getRegisters());
+		assertArrayEquals(message, expected.getStack(), actual.getStack());
+		assertArrayEquals(message, expected.getMemory(), actual.getMemory());
+		assertEquals(message, FrameBuffer.checksum(expected.getScreen()), FrameBuffer.checksum(actual.getScreen()));
+	}
+}
@@ -0,0 +1,51 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class TraceRecorderTest {
+	@Test
+	public void writesEveryStepItRecords() throws IOException {
+		File file = File.createTempFile("trace", ".c8t");
+		CPU cpu = TestMachines.load(0x6005, 0x7101, 0x1202);
+		TraceRecorder recorder = new TraceRecorder(file.getPath());
+		
+		cpu.setTraceRecorder(recorder);
+		cpu.run(100000);
+		cpu.setTraceRecorder(null);
+		recorder.close();
+		
+		TraceFile trace = new TraceFile(file.getPath());
+		assertEquals(100000, trace.getEntryCount());
+		assertEquals(0x200, trace.getPC(0));
+		assertEquals(0x6005, trace.getOpcode(0));
+		assertEquals(0, trace.getChangedRegister(0));
+		assertEquals(5, trace.getChangedValue(0));
+		assertEquals(0x202, trace.getPC(99999));
+		trace.close();
+		file.delete();
+	}
+	
+	@Test
+	public void stopsTracingOnceTheWriterFails() throws IOException {
+		File file = File.createTempFile("trace", ".c8t");
+		CPU cpu = TestMachines.load(0x7101, 0x1200);
+		cpu.setTraceRecorder(new TraceRecorder(file.getPath()));
+		
+		// Writing from an interrupted thread closes the channel and fails
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals("CHIP-8 Trace Writer")) {
+				thread.interrupt();
+			}
+		}
+		
+		cpu.run(2000000);
+		assertNull(cpu.getTraceRecorder());
+		file.delete();
+	}
+}
@@ -0,0 +1,44 @@
+package chip8emu.emulator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class UnknownOpcodeTest {
+	@Test
+	public void reportsTheFirstAndCountsTheRest() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		PrintStream err = System.err;
+		CPU cpu = TestMachines.load(0x0123, 0x1200);
+		
+		System.setErr(new PrintStream(output, true));
+		
+		try {
+			cpu.run(100);
+		} finally {
+			System.setErr(err);
+		}
+		
+		assertEquals(50, cpu.getUnknownOpcodes());
+		assertEquals(String.format("Unknown opcode: 123 at 200%n"), output.toString());
+	}
+	
+	@Test
+	public void countsAgainForEachROM() throws IOException {
+		CPU cpu = TestMachines.load(0x0123, 0x1200);
+		cpu.setBlockDispatch(true);
+		
+		cpu.run(10);
+		assertEquals(5, cpu.getUnknownOpcodes());
+		
+		cpu.loadROM(cpu.getActiveROM());
+		assertEquals(0, cpu.getUnknownOpcodes());
+		
+		cpu.run(4);
+		assertEquals(2, cpu.getUnknownOpcodes());
+	}
+}